@@ -0,0 +1,64 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.RenderEngine;
+import com.pixelengine.engine.RenderTarget;
+import com.pixelengine.engine.gfx.Image;
+import com.pixelengine.engine.gfx.ImageTile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlitBenchmark {
+    @Param({"16", "64", "256"})
+    public int size;
+
+    @Param({"OPAQUE", "MASK", "TRANSLUCENT"})
+    public String alphaMode;
+
+    @Param({"INSIDE", "EDGE", "OUTSIDE"})
+    public String clip;
+
+    @Param({"false", "true"})
+    public boolean premultiplied;
+
+    private RenderEngine renderer;
+    private Image image;
+    private ImageTile tiles;
+    private int offX, offY;
+
+    @Setup
+    public void setup() {
+        renderer = new RenderEngine(new RenderTarget(Sprites.SCREEN_WIDTH, Sprites.SCREEN_HEIGHT));
+
+        // Alpha images are rasterized immediately instead of being queued for process()
+        image = Sprites.image(size, size, alphaMode);
+        image.setAlpha(true);
+        if (premultiplied) {
+            image.premultiply();
+        }
+        tiles = new ImageTile(Sprites.pixels(size * 4, size * 4, alphaMode), size * 4, size * 4, size, size);
+        tiles.setAlpha(true);
+        if (premultiplied) {
+            tiles.premultiply();
+        }
+
+        offX = Sprites.offX(clip, size);
+        offY = Sprites.offY(clip, size);
+    }
+
+    @Benchmark
+    public void drawImage() {
+        renderer.drawImage(image, offX, offY);
+    }
+
+    @Benchmark
+    public void drawImageTile() {
+        renderer.drawImageTile(tiles, offX, offY, 2, 1);
+    }
+}
@@ -0,0 +1,31 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.PixelEngine;
+import com.pixelengine.game.Main;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameBenchmark {
+    private PixelEngine engine;
+
+    @Setup
+    public void setup() {
+        Main mainProgram = new Main();
+        engine = new PixelEngine(mainProgram);
+        engine.setHeadless(true);
+        mainProgram.init(engine);
+    }
+
+    // One fixed step of game.Main: present, clear, process the queue, then the game's draw calls
+    @Benchmark
+    public void mainLoop() {
+        engine.tick();
+    }
+}
@@ -0,0 +1,71 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.gfx.Blend;
+import com.pixelengine.engine.gfx.PixelKernels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One screen's worth of each kernel, scalar against whatever getDefault()
+// picks. Forks with the vector module so the vector backend can load.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class KernelBenchmark {
+    @Param({"SCALAR", "DEFAULT"})
+    public String backend;
+
+    private PixelKernels kernels;
+    private int[] pixels;
+    private int[] row;
+    private int[] premultipliedRow;
+    private int[] zBuffer;
+
+    @Setup
+    public void setup() {
+        kernels = "SCALAR".equals(backend) ? new PixelKernels() : PixelKernels.getDefault();
+
+        Random random = new Random(Sprites.SCREEN_WIDTH);
+        pixels = new int[Sprites.SCREEN_WIDTH * Sprites.SCREEN_HEIGHT];
+        row = new int[Sprites.SCREEN_WIDTH];
+        premultipliedRow = new int[Sprites.SCREEN_WIDTH];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = (random.nextInt(254) + 1) << 24 | (random.nextInt() & 0xffffff);
+            premultipliedRow[i] = Blend.premultiply(row[i]);
+        }
+        zBuffer = new int[pixels.length];
+    }
+
+    @Benchmark
+    public void blend() {
+        for (int y = 0; y < Sprites.SCREEN_HEIGHT; y++) {
+            kernels.blend(pixels, y * Sprites.SCREEN_WIDTH, row, 0, Sprites.SCREEN_WIDTH, false);
+        }
+    }
+
+    @Benchmark
+    public void blendPremultiplied() {
+        for (int y = 0; y < Sprites.SCREEN_HEIGHT; y++) {
+            kernels.blend(pixels, y * Sprites.SCREEN_WIDTH, premultipliedRow, 0, Sprites.SCREEN_WIDTH, true);
+        }
+    }
+
+    @Benchmark
+    public void blendColor() {
+        kernels.blendColor(pixels, 0, pixels.length, 0x80ff8040);
+    }
+
+    @Benchmark
+    public void fill() {
+        kernels.fill(pixels, 0, pixels.length, 0);
+    }
+
+    @Benchmark
+    public int depthRun() {
+        return kernels.depthRun(zBuffer, 0, zBuffer.length, 0);
+    }
+}
@@ -0,0 +1,76 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.Presenter;
+import com.pixelengine.engine.RenderTarget;
+import com.pixelengine.engine.ScaleMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PresentBenchmark {
+    @Param({"2", "3"})
+    public int scale;
+
+    @Param({"INTEGER", "FIT"})
+    public String scaleMode;
+
+    private RenderTarget target;
+    private Presenter presenter;
+    private BufferedImage device;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setup() {
+        target = new RenderTarget(Sprites.SCREEN_WIDTH, Sprites.SCREEN_HEIGHT);
+        Random random = new Random(scale);
+        int[] pixels = target.getPixels();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+
+        // FIT gets a device a little off the whole scale, as a resized window would
+        int extra = "FIT".equals(scaleMode) ? 7 : 0;
+        int width = Sprites.SCREEN_WIDTH * scale + extra;
+        int height = Sprites.SCREEN_HEIGHT * scale + extra;
+        presenter = new Presenter(target, width, height);
+        presenter.setScaleMode(ScaleMode.valueOf(scaleMode));
+
+        device = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics = device.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public void presenter() {
+        presenter.setParallel(false);
+        presenter.present();
+    }
+
+    @Benchmark
+    public void presenterParallel() {
+        presenter.setParallel(true);
+        presenter.present();
+    }
+
+    // What Window.update did before the presenter, scaling in Java2D.
+    @Benchmark
+    public void drawImageScaled() {
+        graphics.drawImage(target.getImage(), presenter.getViewX(), presenter.getViewY(),
+                presenter.getViewWidth(), presenter.getViewHeight(), null);
+    }
+}
@@ -0,0 +1,120 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.DepthMode;
+import com.pixelengine.engine.RenderEngine;
+import com.pixelengine.engine.RenderTarget;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveBenchmark {
+    @Param({"OPAQUE", "TRANSLUCENT"})
+    public String alphaMode;
+
+    @Param({"INSIDE", "EDGE", "OUTSIDE"})
+    public String clip;
+
+    @Param({"BUFFER", "GENERATION", "PAINTER"})
+    public String depthMode;
+
+    private static final int RECT_SIZE = 128;
+    private static final int[] STAR_X = {64, 79, 125, 88, 101, 64, 27, 40, 3, 49};
+    private static final int[] STAR_Y = {0, 45, 45, 73, 118, 90, 118, 73, 45, 45};
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog 0123456789";
+
+    private RenderEngine renderer;
+    private RenderEngine uncached;
+    private int color;
+    private int offX, offY;
+    private int[] starX = new int[STAR_X.length], starY = new int[STAR_Y.length];
+
+    @Setup
+    public void setup() {
+        renderer = new RenderEngine(new RenderTarget(Sprites.SCREEN_WIDTH, Sprites.SCREEN_HEIGHT));
+        renderer.setDepthMode(DepthMode.valueOf(depthMode));
+        uncached = new RenderEngine(new RenderTarget(Sprites.SCREEN_WIDTH, Sprites.SCREEN_HEIGHT));
+        uncached.setDepthMode(DepthMode.valueOf(depthMode));
+        uncached.setTextCaching(false);
+        color = Sprites.color(alphaMode);
+        offX = Sprites.offX(clip, RECT_SIZE);
+        offY = Sprites.offY(clip, RECT_SIZE);
+        for (int i = 0; i < STAR_X.length; i++) {
+            starX[i] = STAR_X[i] + offX;
+            starY[i] = STAR_Y[i] + offY;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECT_SIZE * RECT_SIZE)
+    public void setPixel() {
+        for (int y = 0; y < RECT_SIZE; y++) {
+            for (int x = 0; x < RECT_SIZE; x++) {
+                renderer.setPixel(x + offX, y + offY, color);
+            }
+        }
+    }
+
+    @Benchmark
+    public void drawRect() {
+        renderer.drawRect(offX, offY, RECT_SIZE, RECT_SIZE, color);
+    }
+
+    @Benchmark
+    public void drawRectStroke() {
+        renderer.drawRectStroke(offX, offY, RECT_SIZE, RECT_SIZE, color, 0xffffffff);
+    }
+
+    @Benchmark
+    public void drawLine() {
+        renderer.drawLine(offX, offY, offX + RECT_SIZE, offY + RECT_SIZE / 3, 1, color);
+    }
+
+    @Benchmark
+    public void drawLineThick() {
+        renderer.drawLine(offX, offY, offX + RECT_SIZE, offY + RECT_SIZE / 3, 5, color);
+    }
+
+    // What lines were drawn with before drawLine, one pixel rect per pixel.
+    @Benchmark
+    public void drawLineAsRects() {
+        for (int x = 0; x <= RECT_SIZE; x++) {
+            renderer.drawRect(offX + x, offY + x / 3, 0, 0, color);
+        }
+    }
+
+    @Benchmark
+    public void drawCircle() {
+        renderer.drawCircle(offX + RECT_SIZE / 2, offY + RECT_SIZE / 2, RECT_SIZE / 2, color);
+    }
+
+    @Benchmark
+    public void fillCircle() {
+        renderer.fillCircle(offX + RECT_SIZE / 2, offY + RECT_SIZE / 2, RECT_SIZE / 2, color);
+    }
+
+    @Benchmark
+    public void fillPolygon() {
+        renderer.fillPolygon(starX, starY, starX.length, color);
+    }
+
+    @Benchmark
+    public void drawText() {
+        renderer.drawText(TEXT, offX, offY, color);
+    }
+
+    @Benchmark
+    public void drawTextUncached() {
+        uncached.drawText(TEXT, offX, offY, color);
+    }
+
+    @Benchmark
+    public void clear() {
+        renderer.clear();
+    }
+}
@@ -0,0 +1,58 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.RenderEngine;
+import com.pixelengine.engine.RenderTarget;
+import com.pixelengine.engine.gfx.Image;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueueBenchmark {
+    @Param({"1", "100", "1000", "10000"})
+    public int requests;
+
+    @Param({"OPAQUE", "MASK"})
+    public String alphaMode;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private static final int SPRITE_SIZE = 16;
+
+    private RenderEngine renderer;
+    private Image image;
+    private int[] offX, offY, zDepth;
+
+    @Setup
+    public void setup() {
+        renderer = new RenderEngine(new RenderTarget(Sprites.SCREEN_WIDTH, Sprites.SCREEN_HEIGHT));
+        renderer.setParallel(parallel);
+        image = Sprites.image(SPRITE_SIZE, SPRITE_SIZE, alphaMode);
+
+        Random random = new Random(requests);
+        offX = new int[requests];
+        offY = new int[requests];
+        zDepth = new int[requests];
+        for (int i = 0; i < requests; i++) {
+            offX[i] = random.nextInt(Sprites.SCREEN_WIDTH + SPRITE_SIZE) - SPRITE_SIZE;
+            offY[i] = random.nextInt(Sprites.SCREEN_HEIGHT + SPRITE_SIZE) - SPRITE_SIZE;
+            zDepth[i] = random.nextInt(8);
+        }
+    }
+
+    @Benchmark
+    public void submitAndProcess() {
+        for (int i = 0; i < requests; i++) {
+            renderer.setzDepth(zDepth[i]);
+            renderer.drawImage(image, offX[i], offY[i]);
+        }
+        renderer.process();
+    }
+}
@@ -0,0 +1,51 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.RenderEngine;
+import com.pixelengine.engine.RenderTarget;
+import com.pixelengine.engine.gfx.CompiledSprite;
+import com.pixelengine.engine.gfx.Image;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpriteBenchmark {
+    @Param({"16", "64", "256"})
+    public int size;
+
+    @Param({"SPARSE", "MASK", "OPAQUE"})
+    public String alphaMode;
+
+    @Param({"INSIDE", "EDGE"})
+    public String clip;
+
+    private RenderEngine renderer;
+    private Image image;
+    private CompiledSprite sprite;
+    private int offX, offY;
+
+    @Setup
+    public void setup() {
+        renderer = new RenderEngine(new RenderTarget(Sprites.SCREEN_WIDTH, Sprites.SCREEN_HEIGHT));
+        image = Sprites.image(size, size, alphaMode);
+        image.setAlpha(true);
+        sprite = new CompiledSprite(image);
+        offX = Sprites.offX(clip, size);
+        offY = Sprites.offY(clip, size);
+    }
+
+    @Benchmark
+    public void drawImage() {
+        renderer.drawImage(image, offX, offY);
+    }
+
+    @Benchmark
+    public void drawSprite() {
+        renderer.drawSprite(sprite, offX, offY);
+    }
+}
@@ -0,0 +1,82 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.gfx.Image;
+
+import java.util.Random;
+
+public final class Sprites {
+    public static final int SCREEN_WIDTH = 640;
+    public static final int SCREEN_HEIGHT = 360;
+
+    private Sprites() {
+    }
+
+    public static int[] pixels(int width, int height, String alphaMode) {
+        Random random = new Random(width * 31 + height);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            int rgb = random.nextInt() & 0xffffff;
+            switch (alphaMode) {
+                case "OPAQUE":
+                    pixels[i] = 0xff000000 | rgb;
+                    break;
+                case "MASK":
+                    pixels[i] = random.nextBoolean() ? 0xff000000 | rgb : rgb;
+                    break;
+                case "TRANSLUCENT":
+                    pixels[i] = (random.nextInt(254) + 1) << 24 | rgb;
+                    break;
+                case "SPARSE":
+                    pixels[i] = sparseAlpha(i % width, i / width, width, height) << 24 | rgb;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown alpha mode " + alphaMode);
+            }
+        }
+        return pixels;
+    }
+
+    // A solid disc a third of the sprite wide with a one pixel soft edge, the
+    // rest transparent, like a typical character or particle sprite.
+    private static int sparseAlpha(int x, int y, int width, int height) {
+        double dx = x - width / 2.0 + 0.5;
+        double dy = y - height / 2.0 + 0.5;
+        double distance = Math.sqrt(dx * dx + dy * dy) - Math.min(width, height) / 6.0;
+        if (distance <= 0) return 255;
+        return distance < 1 ? 128 : 0;
+    }
+
+    public static Image image(int width, int height, String alphaMode) {
+        return new Image(pixels(width, height, alphaMode), width, height);
+    }
+
+    public static int color(String alphaMode) {
+        return "TRANSLUCENT".equals(alphaMode) ? 0x80ff8040 : 0xffff8040;
+    }
+
+    public static int offX(String clip, int width) {
+        switch (clip) {
+            case "INSIDE":
+                return (SCREEN_WIDTH - width) / 2;
+            case "EDGE":
+                return -width / 2;
+            case "OUTSIDE":
+                return SCREEN_WIDTH + width;
+            default:
+                throw new IllegalArgumentException("Unknown clip case " + clip);
+        }
+    }
+
+    public static int offY(String clip, int height) {
+        switch (clip) {
+            case "INSIDE":
+                return (SCREEN_HEIGHT - height) / 2;
+            case "EDGE":
+                return -height / 2;
+            case "OUTSIDE":
+                return SCREEN_HEIGHT + height;
+            default:
+                throw new IllegalArgumentException("Unknown clip case " + clip);
+        }
+    }
+}
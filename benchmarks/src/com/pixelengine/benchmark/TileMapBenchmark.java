@@ -0,0 +1,72 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.RenderEngine;
+import com.pixelengine.engine.RenderTarget;
+import com.pixelengine.engine.gfx.ImageTile;
+import com.pixelengine.engine.gfx.TileMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TileMapBenchmark {
+    @Param({"OPAQUE", "MASK"})
+    public String alphaMode;
+
+    private static final int MAP_SIZE = 4096;
+    private static final int TILE_SIZE = 16;
+    private static final int SHEET_TILES = 8;
+
+    private RenderEngine renderer;
+    private ImageTile sheet;
+    private TileMap map;
+    private int frame = 0;
+
+    @Setup
+    public void setup() {
+        renderer = new RenderEngine(new RenderTarget(Sprites.SCREEN_WIDTH, Sprites.SCREEN_HEIGHT));
+        int sheetSize = TILE_SIZE * SHEET_TILES;
+        sheet = new ImageTile(Sprites.pixels(sheetSize, sheetSize, alphaMode), sheetSize, sheetSize, TILE_SIZE, TILE_SIZE);
+        sheet.setAlpha(!"OPAQUE".equals(alphaMode));
+
+        Random random = new Random(MAP_SIZE);
+        int[] tiles = new int[MAP_SIZE * MAP_SIZE];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = random.nextInt(SHEET_TILES * SHEET_TILES);
+        }
+        map = new TileMap(sheet, tiles, MAP_SIZE, MAP_SIZE, 16);
+    }
+
+    // Scrolls diagonally a few pixels a frame, so chunks keep entering the view.
+    @Benchmark
+    public void scroll() {
+        frame++;
+        renderer.drawTileMap(map, -frame * 3 % (MAP_SIZE * TILE_SIZE), -frame * 2 % (MAP_SIZE * TILE_SIZE));
+        renderer.process();
+    }
+
+    // The per-tile path the map replaces, for the same view.
+    @Benchmark
+    public void perTile() {
+        frame++;
+        int offX = -frame * 3 % (MAP_SIZE * TILE_SIZE);
+        int offY = -frame * 2 % (MAP_SIZE * TILE_SIZE);
+        int tileX0 = -offX / TILE_SIZE;
+        int tileY0 = -offY / TILE_SIZE;
+        int tileX1 = Math.min(tileX0 + Sprites.SCREEN_WIDTH / TILE_SIZE + 2, MAP_SIZE);
+        int tileY1 = Math.min(tileY0 + Sprites.SCREEN_HEIGHT / TILE_SIZE + 2, MAP_SIZE);
+        for (int y = tileY0; y < tileY1; y++) {
+            for (int x = tileX0; x < tileX1; x++) {
+                int index = map.getTile(x, y);
+                renderer.drawImageTile(sheet, offX + x * TILE_SIZE, offY + y * TILE_SIZE, index % SHEET_TILES, index / SHEET_TILES);
+            }
+        }
+        renderer.process();
+    }
+}
@@ -0,0 +1,83 @@
+package com.pixelengine.benchmark;
+
+import com.pixelengine.engine.RenderEngine;
+import com.pixelengine.engine.RenderTarget;
+import com.pixelengine.engine.gfx.Image;
+import com.pixelengine.engine.gfx.Orientation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// A bullet hell frame: a thousand small sprites spread over the screen,
+// each at one of 32 angles.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformBenchmark {
+    @Param({"16", "32"})
+    public int size;
+
+    @Param({"SPARSE", "OPAQUE"})
+    public String alphaMode;
+
+    private static final int SPRITES = 1000;
+    private static final int ANGLES = 32;
+
+    private RenderEngine renderer;
+    private RenderEngine cached;
+    private Image image;
+    private int[] xs = new int[SPRITES], ys = new int[SPRITES];
+    private float[] angles = new float[SPRITES];
+
+    @Setup
+    public void setup() {
+        renderer = new RenderEngine(new RenderTarget(Sprites.SCREEN_WIDTH, Sprites.SCREEN_HEIGHT));
+        cached = new RenderEngine(new RenderTarget(Sprites.SCREEN_WIDTH, Sprites.SCREEN_HEIGHT));
+        cached.setTransformCaching(true);
+        image = Sprites.image(size, size, alphaMode);
+        image.setAlpha(true);
+        for (int i = 0; i < SPRITES; i++) {
+            xs[i] = i * 37 % Sprites.SCREEN_WIDTH;
+            ys[i] = i * 91 % Sprites.SCREEN_HEIGHT;
+            angles[i] = (float) (i % ANGLES * 2 * Math.PI / ANGLES);
+        }
+    }
+
+    @Benchmark
+    public void unrotated() {
+        for (int i = 0; i < SPRITES; i++) {
+            renderer.drawImage(image, xs[i] - size / 2, ys[i] - size / 2);
+        }
+    }
+
+    @Benchmark
+    public void rotate90() {
+        for (int i = 0; i < SPRITES; i++) {
+            renderer.drawImage(image, xs[i] - size / 2, ys[i] - size / 2, Orientation.ROTATE_90);
+        }
+    }
+
+    @Benchmark
+    public void rotated() {
+        for (int i = 0; i < SPRITES; i++) {
+            renderer.drawImage(image, xs[i], ys[i], angles[i], 1);
+        }
+    }
+
+    @Benchmark
+    public void rotatedCached() {
+        for (int i = 0; i < SPRITES; i++) {
+            cached.drawImage(image, xs[i], ys[i], angles[i], 1);
+        }
+    }
+
+    @Benchmark
+    public void scaled() {
+        for (int i = 0; i < SPRITES; i++) {
+            renderer.drawImage(image, xs[i], ys[i], angles[i], 1.5f);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.pixelengine.engine;
+
+import com.pixelengine.engine.gfx.ImageRegion;
+
+import java.util.Arrays;
+
+// Deferred image draws stored as parallel arrays. The arrays only
+// grow, so once a scene has reached its peak size submitting a draw and
+// sorting the buffer allocate nothing.
+public class CommandBuffer {
+    private static final int RADIX = 256;
+
+    private ImageRegion[] regions;
+    private int[] zDepths;
+    private int[] xs, ys;
+    private int count = 0;
+
+    private int[] order;
+    private int[] scratch;
+    private int[] histogram = new int[4 * RADIX];
+
+    public CommandBuffer() {
+        this(256);
+    }
+
+    public CommandBuffer(int capacity) {
+        capacity = Math.max(capacity, 1);
+        regions = new ImageRegion[capacity];
+        zDepths = new int[capacity];
+        xs = new int[capacity];
+        ys = new int[capacity];
+        order = new int[capacity];
+        scratch = new int[capacity];
+    }
+
+    public void add(ImageRegion region, int zDepth, int x, int y) {
+        if (count == regions.length) {
+            grow();
+        }
+        regions[count] = region;
+        zDepths[count] = zDepth;
+        xs[count] = x;
+        ys[count] = y;
+        order[count] = count;
+        count++;
+    }
+
+    public void clear() {
+        Arrays.fill(regions, 0, count, null);
+        count = 0;
+    }
+
+    // Stable LSD radix sort on zDepth, one byte per pass. Passes where every
+    // key shares the same byte are skipped, so a frame drawn on a handful of
+    // layers usually costs one counting pass and one scatter.
+    public void sort() {
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        if (count < 2) return;
+
+        Arrays.fill(histogram, 0);
+        boolean sorted = true;
+        int last = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int key = zDepths[i] ^ 0x80000000;
+            histogram[key & 0xff]++;
+            histogram[RADIX + ((key >>> 8) & 0xff)]++;
+            histogram[2 * RADIX + ((key >>> 16) & 0xff)]++;
+            histogram[3 * RADIX + (key >>> 24)]++;
+
+            sorted &= zDepths[i] >= last;
+            last = zDepths[i];
+        }
+        if (sorted) return;
+
+        int[] src = order;
+        int[] dst = scratch;
+        for (int pass = 0; pass < 4; pass++) {
+            int base = pass * RADIX;
+            int shift = pass * 8;
+
+            int firstKey = ((zDepths[src[0]] ^ 0x80000000) >>> shift) & 0xff;
+            if (histogram[base + firstKey] == count) continue;
+
+            int sum = 0;
+            for (int b = base; b < base + RADIX; b++) {
+                int c = histogram[b];
+                histogram[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < count; i++) {
+                int index = src[i];
+                int key = ((zDepths[index] ^ 0x80000000) >>> shift) & 0xff;
+                dst[histogram[base + key]++] = index;
+            }
+
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+
+        order = src;
+        scratch = dst;
+    }
+
+    public void copyFrom(CommandBuffer other) {
+        clear();
+        while (regions.length < other.count) {
+            grow();
+        }
+        System.arraycopy(other.regions, 0, regions, 0, other.count);
+        System.arraycopy(other.zDepths, 0, zDepths, 0, other.count);
+        System.arraycopy(other.xs, 0, xs, 0, other.count);
+        System.arraycopy(other.ys, 0, ys, 0, other.count);
+        count = other.count;
+    }
+
+    public boolean sameCommand(CommandBuffer other, int index) {
+        return regions[index] == other.regions[index] && zDepths[index] == other.zDepths[index]
+                && xs[index] == other.xs[index] && ys[index] == other.ys[index];
+    }
+
+    private void grow() {
+        int capacity = regions.length * 2;
+        regions = Arrays.copyOf(regions, capacity);
+        zDepths = Arrays.copyOf(zDepths, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        order = Arrays.copyOf(order, capacity);
+        scratch = new int[capacity];
+    }
+
+//  ----- Getters -----
+
+    public int size() {
+        return count;
+    }
+
+    public int order(int position) {
+        return order[position];
+    }
+
+    public ImageRegion getRegion(int index) {
+        return regions[index];
+    }
+
+    public int getzDepth(int index) {
+        return zDepths[index];
+    }
+
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        return ys[index];
+    }
+}
@@ -0,0 +1,123 @@
+package com.pixelengine.engine;
+
+// The screen rectangles that changed between two frames. Overlapping or
+// touching rectangles are merged as they are added, and once the damage
+// covers too much of the screen it collapses into a single full redraw.
+public class DamageTracker {
+    private static final int MAX_RECTS = 16;
+
+    private int width, height;
+    private float fullThreshold = 0.5f;
+
+    private int[] rects = new int[MAX_RECTS * 4];
+    private int count = 0;
+    private boolean full = false;
+
+    public DamageTracker(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void clear() {
+        count = 0;
+        full = false;
+    }
+
+    public void addFull() {
+        full = true;
+        count = 1;
+        rects[0] = 0;
+        rects[1] = 0;
+        rects[2] = width;
+        rects[3] = height;
+    }
+
+    // Bounds are exclusive.
+    public void add(int x0, int y0, int x1, int y1) {
+        if (full) return;
+
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, width);
+        y1 = Math.min(y1, height);
+        if (x0 >= x1 || y0 >= y1) return;
+
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < count; i++) {
+                int base = i * 4;
+                if (x0 <= rects[base + 2] && x1 >= rects[base] && y0 <= rects[base + 3] && y1 >= rects[base + 1]) {
+                    x0 = Math.min(x0, rects[base]);
+                    y0 = Math.min(y0, rects[base + 1]);
+                    x1 = Math.max(x1, rects[base + 2]);
+                    y1 = Math.max(y1, rects[base + 3]);
+                    remove(i);
+                    merged = true;
+                    break;
+                }
+            }
+        }
+
+        if (count == MAX_RECTS) {
+            int base = (count - 1) * 4;
+            x0 = Math.min(x0, rects[base]);
+            y0 = Math.min(y0, rects[base + 1]);
+            x1 = Math.max(x1, rects[base + 2]);
+            y1 = Math.max(y1, rects[base + 3]);
+            count--;
+        }
+
+        int base = count * 4;
+        rects[base] = x0;
+        rects[base + 1] = y0;
+        rects[base + 2] = x1;
+        rects[base + 3] = y1;
+        count++;
+
+        if (getArea() > fullThreshold * width * height) {
+            addFull();
+        }
+    }
+
+    private void remove(int index) {
+        count--;
+        System.arraycopy(rects, (index + 1) * 4, rects, index * 4, (count - index) * 4);
+    }
+
+    public long getArea() {
+        long area = 0;
+        for (int i = 0; i < count; i++) {
+            int base = i * 4;
+            area += (long) (rects[base + 2] - rects[base]) * (rects[base + 3] - rects[base + 1]);
+        }
+        return area;
+    }
+
+//  ----- Getters & Setters -----
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Rectangles as x0, y0, x1, y1 quadruples, the first size() are valid.
+    public int[] getRects() {
+        return rects;
+    }
+
+    public float getFullThreshold() {
+        return fullThreshold;
+    }
+
+    public void setFullThreshold(float fullThreshold) {
+        this.fullThreshold = fullThreshold;
+    }
+}
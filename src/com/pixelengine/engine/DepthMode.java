@@ -0,0 +1,12 @@
+package com.pixelengine.engine;
+
+public enum DepthMode {
+    // Depth per pixel, wiped to zero by every clear.
+    BUFFER,
+    // Depth stamped with the frame it was written in, entries from earlier
+    // frames count as empty so clear never has to wipe the buffer.
+    GENERATION,
+    // No depth test at all. Correct when everything is drawn through the
+    // sorted queue, immediate draws simply paint over in call order.
+    PAINTER
+}
@@ -0,0 +1,129 @@
+package com.pixelengine.engine;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// Everything submitted for one frame: the deferred image queue plus the
+// immediate draw calls in the order they were made, so the frame can be
+// rasterized later or on another thread.
+public class DrawList {
+    public static final int PIXEL = 0;
+    public static final int TEXT = 1;
+    public static final int IMAGE = 2;
+    public static final int RECT = 3;
+    public static final int RECT_STROKE = 4;
+    public static final int LINE = 5;
+    public static final int SPRITE = 6;
+    public static final int ELLIPSE = 7;
+    public static final int ELLIPSE_FILL = 8;
+    public static final int POLYGON = 9;
+    public static final int IMAGE_ORIENTED = 10;
+    public static final int IMAGE_TRANSFORM = 11;
+
+    public static final int ARGS = 6;
+
+    private CommandBuffer queue = new CommandBuffer();
+
+    private int[] types;
+    private int[] zDepths;
+    private int[] args;
+    private Object[] refs;
+    private int count = 0;
+
+    public DrawList() {
+        this(256);
+    }
+
+    public DrawList(int capacity) {
+        capacity = Math.max(capacity, 1);
+        types = new int[capacity];
+        zDepths = new int[capacity];
+        args = new int[capacity * ARGS];
+        refs = new Object[capacity];
+    }
+
+    public void add(int type, int zDepth, Object ref, int a0, int a1, int a2, int a3, int a4, int a5) {
+        if (count == types.length) {
+            grow();
+        }
+        types[count] = type;
+        zDepths[count] = zDepth;
+        refs[count] = ref;
+
+        int base = count * ARGS;
+        args[base] = a0;
+        args[base + 1] = a1;
+        args[base + 2] = a2;
+        args[base + 3] = a3;
+        args[base + 4] = a4;
+        args[base + 5] = a5;
+        count++;
+    }
+
+    public void clear() {
+        queue.clear();
+        Arrays.fill(refs, 0, count, null);
+        count = 0;
+    }
+
+    public void copyFrom(DrawList other) {
+        clear();
+        queue.copyFrom(other.queue);
+        while (types.length < other.count) {
+            grow();
+        }
+        System.arraycopy(other.types, 0, types, 0, other.count);
+        System.arraycopy(other.zDepths, 0, zDepths, 0, other.count);
+        System.arraycopy(other.args, 0, args, 0, other.count * ARGS);
+        System.arraycopy(other.refs, 0, refs, 0, other.count);
+        count = other.count;
+    }
+
+    public boolean sameCommand(DrawList other, int index) {
+        if (types[index] != other.types[index] || zDepths[index] != other.zDepths[index]
+                || !Objects.deepEquals(refs[index], other.refs[index])) {
+            return false;
+        }
+        int base = index * ARGS;
+        for (int i = base; i < base + ARGS; i++) {
+            if (args[i] != other.args[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        zDepths = Arrays.copyOf(zDepths, capacity);
+        args = Arrays.copyOf(args, capacity * ARGS);
+        refs = Arrays.copyOf(refs, capacity);
+    }
+
+//  ----- Getters -----
+
+    public CommandBuffer getQueue() {
+        return queue;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getType(int index) {
+        return types[index];
+    }
+
+    public int getzDepth(int index) {
+        return zDepths[index];
+    }
+
+    public Object getRef(int index) {
+        return refs[index];
+    }
+
+    public int getArg(int index, int arg) {
+        return args[index * ARGS + arg];
+    }
+}
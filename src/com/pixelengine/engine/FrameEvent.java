@@ -0,0 +1,47 @@
+package com.pixelengine.engine;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.pixelengine.Frame")
+@Label("Frame")
+@Category("Pixel Engine")
+@Description("Per-frame timings and raster counters")
+@StackTrace(false)
+public class FrameEvent extends jdk.jfr.Event {
+    @Label("Frame Time") @Timespan
+    public long frameTime;
+
+    @Label("Update") @Timespan
+    public long update;
+
+    @Label("Sort") @Timespan
+    public long sort;
+
+    @Label("Rasterize") @Timespan
+    public long rasterize;
+
+    @Label("Clear") @Timespan
+    public long clear;
+
+    @Label("Present") @Timespan
+    public long present;
+
+    @Label("Draw Calls")
+    public long drawCalls;
+
+    @Label("Pixels Written")
+    public long pixelsWritten;
+
+    @Label("Pixels Rejected")
+    @Description("Pixels that failed the depth test")
+    public long pixelsRejected;
+
+    @Label("Overdraw")
+    @Description("Pixels written divided by the framebuffer size")
+    public double overdraw;
+}
@@ -0,0 +1,114 @@
+package com.pixelengine.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Collects per-frame phase timings and raster counters, keeps a rolling
+// history for percentiles and emits a FrameEvent to Flight Recorder.
+// Phases may be recorded from the update and render threads at once.
+public class FrameProfiler {
+    public static final int FRAME = 0;
+    public static final int UPDATE = 1;
+    public static final int SORT = 2;
+    public static final int RASTERIZE = 3;
+    public static final int CLEAR = 4;
+    public static final int PRESENT = 5;
+    public static final int PHASES = 6;
+
+    public static final int DRAW_CALLS = 0;
+    public static final int PIXELS_WRITTEN = 1;
+    public static final int PIXELS_REJECTED = 2;
+    public static final int COUNTERS = 3;
+
+    private static final String[] PHASE_NAMES = {"frame", "update", "sort", "rasterize", "clear", "present"};
+
+    private AtomicLongArray phases = new AtomicLongArray(PHASES);
+    private AtomicLongArray counters = new AtomicLongArray(COUNTERS);
+    private long pixelCount;
+
+    private long[][] history;
+    private long[] lastCounters = new long[COUNTERS];
+    private long[] scratch;
+    private int frames = 0;
+
+    public FrameProfiler(int pixelCount) {
+        this(pixelCount, 600);
+    }
+
+    public FrameProfiler(int pixelCount, int historySize) {
+        this.pixelCount = Math.max(pixelCount, 1);
+        history = new long[PHASES][historySize];
+        scratch = new long[historySize];
+    }
+
+    public void record(int phase, long nanos) {
+        phases.addAndGet(phase, nanos);
+    }
+
+    public void count(long drawCalls, long pixelsWritten, long pixelsRejected) {
+        counters.addAndGet(DRAW_CALLS, drawCalls);
+        counters.addAndGet(PIXELS_WRITTEN, pixelsWritten);
+        counters.addAndGet(PIXELS_REJECTED, pixelsRejected);
+    }
+
+    public synchronized void endFrame(long frameNanos) {
+        phases.set(FRAME, frameNanos);
+
+        int slot = frames % scratch.length;
+        for (int phase = 0; phase < PHASES; phase++) {
+            history[phase][slot] = phases.getAndSet(phase, 0);
+        }
+        for (int counter = 0; counter < COUNTERS; counter++) {
+            lastCounters[counter] = counters.getAndSet(counter, 0);
+        }
+        frames++;
+
+        FrameEvent event = new FrameEvent();
+        if (event.isEnabled()) {
+            event.frameTime = history[FRAME][slot];
+            event.update = history[UPDATE][slot];
+            event.sort = history[SORT][slot];
+            event.rasterize = history[RASTERIZE][slot];
+            event.clear = history[CLEAR][slot];
+            event.present = history[PRESENT][slot];
+            event.drawCalls = lastCounters[DRAW_CALLS];
+            event.pixelsWritten = lastCounters[PIXELS_WRITTEN];
+            event.pixelsRejected = lastCounters[PIXELS_REJECTED];
+            event.overdraw = getOverdraw();
+            event.commit();
+        }
+    }
+
+    // Nanoseconds at or below which the given fraction (0..1) of the frames
+    // in the history fall for one phase.
+    public synchronized long getPercentile(int phase, double fraction) {
+        int size = Math.min(frames, scratch.length);
+        if (size == 0) return 0;
+
+        System.arraycopy(history[phase], 0, scratch, 0, size);
+        Arrays.sort(scratch, 0, size);
+        int index = (int) Math.ceil(fraction * size) - 1;
+        return scratch[Math.max(0, Math.min(index, size - 1))];
+    }
+
+    public synchronized long getLast(int phase) {
+        if (frames == 0) return 0;
+        return history[phase][(frames - 1) % scratch.length];
+    }
+
+    public synchronized long getCounter(int counter) {
+        return lastCounters[counter];
+    }
+
+    public synchronized double getOverdraw() {
+        return lastCounters[PIXELS_WRITTEN] / (double) pixelCount;
+    }
+
+    public synchronized int getFrames() {
+        return frames;
+    }
+
+    public static String getPhaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+}
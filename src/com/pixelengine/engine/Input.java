@@ -2,26 +2,42 @@ package com.pixelengine.engine;
 
 import java.awt.event.*;
 
+// Listeners only post events to an InputQueue, the game thread applies
+// them in update() at the start of each tick. Presses and releases are
+// remembered per tick, so a tap that starts and ends between two ticks
+// still shows up in isKeyDown() and isKeyUp().
 public class Input implements KeyListener, MouseListener, MouseMotionListener, MouseWheelListener {
     private Window window;
+    private InputQueue queue = new InputQueue();
 
     private final int NUM_KEYS = 256;
     private boolean[] keys = new boolean[NUM_KEYS];
-    private boolean[] keysLast = new boolean[NUM_KEYS];
+    private boolean[] keysDown = new boolean[NUM_KEYS];
+    private boolean[] keysUp = new boolean[NUM_KEYS];
 
     private final int NUM_BUTTONS = 5;
     private boolean[] buttons = new boolean[NUM_BUTTONS];
-    private boolean[] buttonsLast = new boolean[NUM_BUTTONS];
+    private boolean[] buttonsDown = new boolean[NUM_BUTTONS];
+    private boolean[] buttonsUp = new boolean[NUM_BUTTONS];
 
     private int mouseX, mouseY;
     private int scroll;
 
-    public Input(Window window) {
-        this.window = window;
+    // Events applied by the last update, two longs each as the queue stores them
+    private long[] events = new long[queue.getCapacity() * 2];
+    private int eventCount = 0;
+    private int[] touchedKeys = new int[NUM_KEYS];
+    private int touchedCount = 0;
 
+    public Input() {
         mouseX = 0;
         mouseY = 0;
         scroll = 0;
+    }
+
+    public Input(Window window) {
+        this();
+        this.window = window;
 
         window.getCanvas().addKeyListener(this);
         window.getCanvas().addMouseListener(this);
@@ -31,24 +47,89 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener, M
 
     public void update() {
         scroll = 0;
-        for (int i = 0; i < NUM_KEYS; i++) {
-            keysLast[i] = keys[i];
+        for (int i = 0; i < touchedCount; i++) {
+            keysDown[touchedKeys[i]] = false;
+            keysUp[touchedKeys[i]] = false;
         }
+        touchedCount = 0;
         for (int i = 0; i < NUM_BUTTONS; i++) {
-            buttonsLast[i] = buttons[i];
+            buttonsDown[i] = false;
+            buttonsUp[i] = false;
+        }
+
+        eventCount = queue.drain(events, queue.getCapacity());
+        for (int i = 0; i < eventCount; i++) {
+            apply(events[i * 2 + 1]);
+        }
+    }
+
+    private void apply(long event) {
+        int code = InputQueue.code(event);
+        switch (InputQueue.type(event)) {
+            // Key repeat sends more presses while a key is held, only the
+            // first one counts
+            case InputQueue.KEY_DOWN:
+                if (keys[code]) break;
+                touch(code);
+                keys[code] = true;
+                keysDown[code] = true;
+                break;
+            case InputQueue.KEY_UP:
+                if (!keys[code]) break;
+                touch(code);
+                keys[code] = false;
+                keysUp[code] = true;
+                break;
+            case InputQueue.BUTTON_DOWN:
+                buttonsDown[code] |= !buttons[code];
+                buttons[code] = true;
+                break;
+            case InputQueue.BUTTON_UP:
+                buttonsUp[code] |= buttons[code];
+                buttons[code] = false;
+                break;
+            case InputQueue.MOVE:
+                mouseX = code;
+                mouseY = InputQueue.value(event);
+                break;
+            case InputQueue.SCROLL:
+                scroll += InputQueue.value(event);
+                break;
         }
     }
 
+    private void touch(int keyCode) {
+        if (!keysDown[keyCode] && !keysUp[keyCode]) {
+            touchedKeys[touchedCount++] = keyCode;
+        }
+    }
+
+    // Queues an event as if it came from the window, for driving input
+    // without one. Must not race the window's own listeners.
+    public void post(int type, int code, int value) {
+        switch (type) {
+            case InputQueue.KEY_DOWN:
+            case InputQueue.KEY_UP:
+                if (code < 0 || code >= NUM_KEYS) return;
+                break;
+            case InputQueue.BUTTON_DOWN:
+            case InputQueue.BUTTON_UP:
+                if (code < 0 || code >= NUM_BUTTONS) return;
+                break;
+        }
+        queue.post(System.nanoTime(), type, code, value);
+    }
+
     public boolean isKey(int keyCode) {
         return keys[keyCode];
     }
 
     public boolean isKeyUp(int keyCode) {
-        return !keys[keyCode] && keysLast[keyCode];
+        return keysUp[keyCode];
     }
 
     public boolean isKeyDown(int keyCode) {
-        return keys[keyCode] && !keysLast[keyCode];
+        return keysDown[keyCode];
     }
 
     public boolean isButton(int button) {
@@ -56,11 +137,11 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener, M
     }
 
     public boolean isButtonUp(int button) {
-        return !buttons[button] && buttonsLast[button];
+        return buttonsUp[button];
     }
 
     public boolean isButtonDown(int button) {
-        return buttons[button] && !buttonsLast[button];
+        return buttonsDown[button];
     }
 
     @Override
@@ -70,12 +151,12 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener, M
 
     @Override
     public void keyPressed(KeyEvent e) {
-        keys[e.getKeyCode()] = true;
+        post(InputQueue.KEY_DOWN, e.getKeyCode(), 0);
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
-        keys[e.getKeyCode()] = false;
+        post(InputQueue.KEY_UP, e.getKeyCode(), 0);
     }
 
     @Override
@@ -85,12 +166,12 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener, M
 
     @Override
     public void mousePressed(MouseEvent e) {
-        buttons[e.getButton()] = true;
+        post(InputQueue.BUTTON_DOWN, e.getButton(), 0);
     }
 
     @Override
     public void mouseReleased(MouseEvent e) {
-        buttons[e.getButton()] = false;
+        post(InputQueue.BUTTON_UP, e.getButton(), 0);
     }
 
     @Override
@@ -105,19 +186,17 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener, M
 
     @Override
     public void mouseDragged(MouseEvent e) {
-        mouseX = (int)(e.getX() / window.getDensityX());
-        mouseY = (int)(e.getY() / window.getDensityY());
+        post(InputQueue.MOVE, window.toTargetX(e.getX()), window.toTargetY(e.getY()));
     }
 
     @Override
     public void mouseMoved(MouseEvent e) {
-        mouseX = (int)(e.getX() / window.getDensityX());
-        mouseY = (int)(e.getY() / window.getDensityY());
+        post(InputQueue.MOVE, window.toTargetX(e.getX()), window.toTargetY(e.getY()));
     }
 
     @Override
     public void mouseWheelMoved(MouseWheelEvent e) {
-        scroll = e.getWheelRotation();
+        post(InputQueue.SCROLL, 0, e.getWheelRotation());
     }
 
     public int getMouseX() {
@@ -131,4 +210,18 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener, M
     public int getScroll() {
         return scroll;
     }
+
+    public InputQueue getQueue() {
+        return queue;
+    }
+
+    // The events the last update applied, eventCount of them as time and
+    // packed event pairs.
+    public long[] getEvents() {
+        return events;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
 }
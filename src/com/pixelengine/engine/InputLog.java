@@ -0,0 +1,100 @@
+package com.pixelengine.engine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// An InputRecorder log read back into memory, ready to be posted to an
+// Input tick by tick.
+public class InputLog {
+    private int width, height;
+
+    private long[] ticks = new long[64];
+    private int[] starts = new int[65];
+    private long[] events = new long[256];
+    private int tickCount = 0;
+    private int eventCount = 0;
+    private int cursor = 0;
+
+    public InputLog(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(source));
+        if (in.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("Not an input log");
+        }
+        int version = in.readInt();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Input log version " + version + " is not supported, expected " + InputRecorder.VERSION);
+        }
+        width = in.readInt();
+        height = in.readInt();
+
+        while (true) {
+            long tick;
+            try {
+                tick = in.readLong();
+            } catch (EOFException e) {
+                break;
+            }
+            int count = in.readInt();
+            if (tickCount > 0 && tick <= ticks[tickCount - 1]) {
+                throw new IOException("Input log ticks go backwards at " + tick);
+            }
+
+            if (tickCount == ticks.length) {
+                ticks = Arrays.copyOf(ticks, tickCount * 2);
+                starts = Arrays.copyOf(starts, tickCount * 2 + 1);
+            }
+            while ((eventCount + count) * 2 > events.length) {
+                events = Arrays.copyOf(events, events.length * 2);
+            }
+            ticks[tickCount] = tick;
+            starts[tickCount] = eventCount;
+            for (int i = 0; i < count; i++) {
+                events[(eventCount + i) * 2] = in.readLong();
+                events[(eventCount + i) * 2 + 1] = in.readLong();
+            }
+            eventCount += count;
+            tickCount++;
+            starts[tickCount] = eventCount;
+        }
+    }
+
+    // Posts the events logged for tick, ticks must be asked for in order.
+    public void post(long tick, Input input) {
+        while (cursor < tickCount && ticks[cursor] < tick) {
+            cursor++;
+        }
+        if (cursor == tickCount || ticks[cursor] != tick) return;
+
+        InputQueue queue = input.getQueue();
+        for (int i = starts[cursor]; i < starts[cursor + 1]; i++) {
+            long event = events[i * 2 + 1];
+            queue.post(events[i * 2], InputQueue.type(event), InputQueue.code(event), InputQueue.value(event));
+        }
+        cursor++;
+    }
+
+    public void rewind() {
+        cursor = 0;
+    }
+
+    // The last tick that has events, 0 for an empty log.
+    public long getLastTick() {
+        return tickCount == 0 ? 0 : ticks[tickCount - 1];
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,95 @@
+package com.pixelengine.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single producer, single consumer ring of input events. The AWT event
+// thread posts and the game thread drains, neither ever takes a lock or
+// allocates. An event is two longs: when it happened in System.nanoTime
+// and a packed type, code and value.
+public class InputQueue {
+    public static final int KEY_DOWN = 1;
+    public static final int KEY_UP = 2;
+    public static final int BUTTON_DOWN = 3;
+    public static final int BUTTON_UP = 4;
+    public static final int MOVE = 5;
+    public static final int SCROLL = 6;
+
+    private final long[] ring;
+    private final int mask;
+
+    // Written only by the producer and consumer respectively
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private long dropped = 0;
+
+    public InputQueue() {
+        this(1024);
+    }
+
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, got " + capacity);
+        }
+        ring = new long[capacity * 2];
+        mask = capacity - 1;
+    }
+
+    // Moves carry x in the code and y in the value. Returns false and drops
+    // the event when the consumer has fallen a whole ring behind.
+    public boolean post(long time, int type, int code, int value) {
+        long position = tail.get();
+        if (position - head.getAcquire() > mask) {
+            dropped++;
+            return false;
+        }
+        int index = (int) (position & mask) * 2;
+        ring[index] = time;
+        ring[index + 1] = pack(type, code, value);
+        tail.setRelease(position + 1);
+        return true;
+    }
+
+    // Copies up to max events into events, two longs each, and returns how
+    // many were taken.
+    public int drain(long[] events, int max) {
+        long position = head.get();
+        int count = (int) Math.min(tail.getAcquire() - position, max);
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((position + i) & mask) * 2;
+            events[i * 2] = ring[index];
+            events[i * 2 + 1] = ring[index + 1];
+        }
+        head.setRelease(position + count);
+        return count;
+    }
+
+    public static long pack(int type, int code, int value) {
+        return (long) type << 56 | (code & 0xffffffL) << 32 | (value & 0xffffffffL);
+    }
+
+    public static int type(long event) {
+        return (int) (event >>> 56);
+    }
+
+    // Sign extended, so a drag past the left edge keeps its negative x.
+    public static int code(long event) {
+        return (int) (event << 8 >> 40);
+    }
+
+    public static int value(long event) {
+        return (int) event;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    // Only meaningful on the producer thread.
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,49 @@
+package com.pixelengine.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Logs the input events applied each tick, keyed by the fixed-step tick
+// number, so an InputLog can feed them back through a headless run. Ticks
+// count from 1 at the first tick after recording starts, start recording
+// right after init for the replay to reach the same game state.
+public class InputRecorder {
+    public static final int MAGIC = 0x5058494e;
+    public static final int VERSION = 1;
+
+    private DataOutputStream out;
+    private long firstTick = -1;
+    private long firstTime;
+
+    public InputRecorder(OutputStream out, int width, int height) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+        this.out.writeInt(width);
+        this.out.writeInt(height);
+    }
+
+    // Called after Input.update, ticks without events are not written.
+    public void record(long tick, Input input) throws IOException {
+        if (firstTick < 0) {
+            firstTick = tick - 1;
+            firstTime = System.nanoTime();
+        }
+        int count = input.getEventCount();
+        if (count == 0) return;
+
+        long[] events = input.getEvents();
+        out.writeLong(tick - firstTick);
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeLong(events[i * 2] - firstTime);
+            out.writeLong(events[i * 2 + 1]);
+        }
+    }
+
+    public void close() throws IOException {
+        out.close();
+    }
+}
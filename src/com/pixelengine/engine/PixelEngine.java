@@ -1,25 +1,59 @@
 package com.pixelengine.engine;
 
+import com.pixelengine.engine.asset.AssetManager;
+import com.pixelengine.engine.asset.AssetPack;
+import com.pixelengine.engine.capture.DeltaEncoder;
+import com.pixelengine.engine.capture.FrameCapture;
+import com.pixelengine.engine.capture.FrameEncoder;
+import com.pixelengine.engine.gfx.CompiledSprite;
 import com.pixelengine.engine.gfx.Image;
+import com.pixelengine.engine.gfx.ImageRegion;
 import com.pixelengine.engine.gfx.ImageTile;
+import com.pixelengine.engine.gfx.Orientation;
+import com.pixelengine.engine.gfx.TileMap;
 import com.pixelengine.game.Main;
 
+import java.awt.GraphicsEnvironment;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class PixelEngine implements Runnable {
     private Thread thread;
-    private static PixelEngine pixelEngine = new PixelEngine();
-    private static Main mainProgram = new Main();
+    private Main mainProgram;
 
     private Window window;
+    private RenderTarget target;
     private RenderEngine renderer;
+    private RenderThread renderThread;
+    private DrawList spareList = new DrawList();
     private Input input;
-
-
+    private AssetManager assets = new AssetManager();
+    private InputRecorder inputRecorder;
+    private FrameCapture capture;
+    private long tickCount = 0;
+
+    private FrameProfiler profiler;
+    private boolean profiling = false;
+    private boolean profilerHud = false;
+    private String[] hudLines = new String[0];
+    private long windowTime;
+
+    private boolean headless = GraphicsEnvironment.isHeadless();
     private boolean running = false;
     private final double UPDATE_CAP = 1.0/60.0;
 
+    public PixelEngine(Main mainProgram) {
+        this.mainProgram = mainProgram;
+    }
+
     private void start() {
-        thread = new Thread(this);
-        thread.run();
+        thread = new Thread(this, "PixelEngine");
+        thread.start();
     }
 
     public void run() {
@@ -38,17 +72,100 @@ public class PixelEngine implements Runnable {
             unprocessedTime += elapsedTime;
             while (unprocessedTime >= UPDATE_CAP) {
                 unprocessedTime -= UPDATE_CAP;
-                mainProgram.loop(this);
-                input.update();
+                tick();
+            }
+        }
+    }
+
+    public void tick() {
+        long start = System.nanoTime();
+        windowTime = 0;
+        tickCount++;
+
+        input.update();
+        if (inputRecorder != null) {
+            try {
+                inputRecorder.record(tickCount, input);
+            } catch (IOException e) {
+                e.printStackTrace();
+                inputRecorder = null;
             }
         }
+        mainProgram.loop(this);
+        if (profiler != null && profilerHud) {
+            drawProfilerHud();
+        }
+
+        if (profiler != null) {
+            long frameTime = System.nanoTime() - start;
+            profiler.record(FrameProfiler.UPDATE, frameTime - windowTime);
+            renderer.flushStats();
+            profiler.endFrame(frameTime);
+        }
+    }
+
+    public void stop() {
+        running = false;
+        setPipelined(false);
+        assets.shutdown();
+        try {
+            stopRecording();
+            stopCapture();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     public static void main(String[] args) {
+        Main mainProgram = new Main();
+        PixelEngine pixelEngine = new PixelEngine(mainProgram);
+
+        // Opened before init so its assets load from the pack
+        Path pack = findPack(args);
+        if (pack != null) {
+            try {
+                pixelEngine.openPack(pack);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
         mainProgram.init(pixelEngine);
+
+        // --record <file> logs the session's input for ReplayRunner
+        // --capture <file> writes every frame shown as a DeltaEncoder stream
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            try {
+                if (args[i].equals("--record")) {
+                    pixelEngine.startRecording(new FileOutputStream(args[i + 1]));
+                } else if (args[i].equals("--capture")) {
+                    pixelEngine.startCapture(new DeltaEncoder(new FileOutputStream(args[i + 1])));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
         pixelEngine.start();
     }
 
+    // --pack <file> reads assets from a pack built by `gradle pack`, otherwise
+    // assets.pack next to the jar is used when there is one. Without a pack
+    // everything decodes from res/ on the classpath.
+    private static Path findPack(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--pack")) {
+                return Paths.get(args[i + 1]);
+            }
+        }
+
+        try {
+            Path location = Paths.get(PixelEngine.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            Path pack = location.resolveSibling("assets.pack");
+            return Files.isRegularFile(pack) ? pack : null;
+        } catch (URISyntaxException | RuntimeException e) {
+            return null;
+        }
+    }
+
 //  ----- Getters & Setters -----
 
     public float deltaTime() {
@@ -63,19 +180,183 @@ public class PixelEngine implements Runnable {
         renderer.setzDepth(zDepth);
     }
 
+    public AssetManager getAssets() {
+        return assets;
+    }
+
+    // Assets in the pack are mapped straight from it instead of decoded.
+    public void openPack(Path path) throws IOException {
+        assets.setPack(AssetPack.open(path));
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
+
+    public RenderTarget getTarget() {
+        return target;
+    }
+
+    public RenderEngine getRenderer() {
+        return renderer;
+    }
+
+    public boolean isDamageTracking() {
+        return renderer.isDamageTracking();
+    }
+
+    public void setDepthMode(DepthMode depthMode) {
+        renderer.setDepthMode(depthMode);
+    }
+
+    // Damage tracking records each frame and only clears, redraws and presents
+    // the rectangles that differ from the previous frame.
+    public void setDamageTracking(boolean damageTracking) {
+        renderer.setDamageTracking(damageTracking);
+        renderer.setRecording(damageTracking || isPipelined());
+    }
+
+    public boolean isPipelined() {
+        return renderThread != null;
+    }
+
+    // Pipelined mode records each frame's draw calls on the update thread and
+    // rasterizes and presents them on a separate render thread, one frame behind.
+    public void setPipelined(boolean pipelined) {
+        if (pipelined == isPipelined()) return;
+
+        if (pipelined) {
+            renderer.setRecording(true);
+            renderThread = new RenderThread(target, window);
+            renderThread.setCapture(capture);
+            renderThread.start();
+        } else {
+            renderThread.stop();
+            renderThread = null;
+            renderer.setRecording(renderer.isDamageTracking());
+            renderer.swapDrawList(new DrawList());
+            renderer.invalidate();
+        }
+    }
+
 
 //  ----- Window -----
 
     public void createWindow(int width, int height, float densityX, float densityY, String title) {
-        window = new Window(width, height, densityX, densityY, title);
-        renderer = new RenderEngine(width, height, window);
+        if (headless) {
+            createTarget(width, height);
+            return;
+        }
+        target = new RenderTarget(width, height);
+        window = new Window(target, densityX, densityY, title);
+        renderer = new RenderEngine(target);
         input = new Input(window);
+        createProfiler();
+    }
+
+    public void createTarget(int width, int height) {
+        target = new RenderTarget(width, height);
+        window = null;
+        renderer = new RenderEngine(target);
+        input = new Input();
+        createProfiler();
     }
 
     public void drawWindow() {
-        window.update();
-        renderer.clear();
-        renderer.process();
+        long start = System.nanoTime();
+
+        if (renderThread != null) {
+            renderThread.submit(renderer);
+        } else if (renderer.isRecording()) {
+            DrawList list = renderer.swapDrawList(spareList);
+            renderer.render(list);
+            spareList = list;
+            if (capture != null) {
+                capture.capture(target.getPixels());
+            }
+
+            if (window != null) {
+                long present = System.nanoTime();
+                window.update(renderer.getDamage());
+                if (profiler != null) {
+                    profiler.record(FrameProfiler.PRESENT, System.nanoTime() - present);
+                }
+            }
+        } else {
+            if (window != null) {
+                window.update();
+                if (profiler != null) {
+                    profiler.record(FrameProfiler.PRESENT, System.nanoTime() - start);
+                }
+            }
+            if (capture != null) {
+                capture.capture(target.getPixels());
+            }
+            renderer.clear();
+            renderer.process();
+        }
+
+        windowTime += System.nanoTime() - start;
+    }
+
+//  ----- Profiler -----
+
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    // Can be turned on before the window exists, the profiler is sized for
+    // the target once it is created.
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+        createProfiler();
+    }
+
+    private void createProfiler() {
+        if (target == null) return;
+
+        profiler = profiling ? new FrameProfiler(target.getWidth() * target.getHeight()) : null;
+        renderer.setProfiler(profiler);
+    }
+
+    public boolean isProfilerHud() {
+        return profilerHud;
+    }
+
+    // The HUD needs profiling to be on, it is drawn on top of each frame.
+    public void setProfilerHud(boolean profilerHud) {
+        this.profilerHud = profilerHud;
+    }
+
+    private void drawProfilerHud() {
+        if (profiler.getFrames() % 30 == 0 || hudLines.length == 0) {
+            hudLines = new String[] {
+                    String.format("frame p50 %.2fms p99 %.2fms", profiler.getPercentile(FrameProfiler.FRAME, 0.5) / 1.0e6,
+                            profiler.getPercentile(FrameProfiler.FRAME, 0.99) / 1.0e6),
+                    String.format("upd %.2f sort %.2f ras %.2f clr %.2f pre %.2f", profiler.getLast(FrameProfiler.UPDATE) / 1.0e6,
+                            profiler.getLast(FrameProfiler.SORT) / 1.0e6, profiler.getLast(FrameProfiler.RASTERIZE) / 1.0e6,
+                            profiler.getLast(FrameProfiler.CLEAR) / 1.0e6, profiler.getLast(FrameProfiler.PRESENT) / 1.0e6),
+                    String.format("draws %d px %d rej %d over %.2f", profiler.getCounter(FrameProfiler.DRAW_CALLS),
+                            profiler.getCounter(FrameProfiler.PIXELS_WRITTEN), profiler.getCounter(FrameProfiler.PIXELS_REJECTED),
+                            profiler.getOverdraw())
+            };
+        }
+
+        int depth = renderer.getzDepth();
+        renderer.setzDepth(Integer.MAX_VALUE);
+        int lineHeight = renderer.getFont().getHeight();
+        for (int i = 0; i < hudLines.length; i++) {
+            renderer.drawText(hudLines[i], 2, 2 + i * lineHeight, 0xffffff00);
+        }
+        renderer.setzDepth(depth);
     }
 
 //  ----- Render Engine -----
@@ -88,10 +369,38 @@ public class PixelEngine implements Runnable {
         renderer.drawImage(image, offX, offY);
     }
 
+    public void drawImage(ImageRegion region, int offX, int offY) {
+        renderer.drawImage(region, offX, offY);
+    }
+
+    public void drawImage(Image image, int offX, int offY, Orientation orientation) {
+        renderer.drawImage(image, offX, offY, orientation);
+    }
+
+    public void drawImage(ImageRegion region, int offX, int offY, Orientation orientation) {
+        renderer.drawImage(region, offX, offY, orientation);
+    }
+
+    public void drawImage(Image image, int centerX, int centerY, float angle, float scale) {
+        renderer.drawImage(image, centerX, centerY, angle, scale);
+    }
+
+    public void drawImage(ImageRegion region, int centerX, int centerY, float angle, float scale) {
+        renderer.drawImage(region, centerX, centerY, angle, scale);
+    }
+
     public void drawImageTile(ImageTile image, int offX, int offY, int tileX, int tileY) {
         renderer.drawImageTile(image, offX, offY, tileX, tileY);
     }
 
+    public void drawSprite(CompiledSprite sprite, int offX, int offY) {
+        renderer.drawSprite(sprite, offX, offY);
+    }
+
+    public void drawTileMap(TileMap map, int offX, int offY) {
+        renderer.drawTileMap(map, offX, offY);
+    }
+
     public void drawRect(int offX, int offY, int width, int height, int fill) {
         renderer.drawRect(offX, offY, width, height, fill);
     }
@@ -104,8 +413,81 @@ public class PixelEngine implements Runnable {
         renderer.drawLine(x1, y1, x2, y2, thickness, color);
     }
 
+    public void drawCircle(int centerX, int centerY, int radius, int color) {
+        renderer.drawCircle(centerX, centerY, radius, color);
+    }
+
+    public void fillCircle(int centerX, int centerY, int radius, int color) {
+        renderer.fillCircle(centerX, centerY, radius, color);
+    }
+
+    public void drawEllipse(int centerX, int centerY, int radiusX, int radiusY, int color) {
+        renderer.drawEllipse(centerX, centerY, radiusX, radiusY, color);
+    }
+
+    public void fillEllipse(int centerX, int centerY, int radiusX, int radiusY, int color) {
+        renderer.fillEllipse(centerX, centerY, radiusX, radiusY, color);
+    }
+
+    public void fillPolygon(int[] xs, int[] ys, int vertexCount, int color) {
+        renderer.fillPolygon(xs, ys, vertexCount, color);
+    }
+
+//  ----- Capture -----
+
+    public FrameCapture getCapture() {
+        return capture;
+    }
+
+    // Copies every frame drawWindow finishes to the encoder on a background
+    // thread until stopCapture. Frames the encoder can't keep up with are
+    // dropped rather than stalling the game loop.
+    public void startCapture(FrameEncoder encoder) throws IOException {
+        startCapture(encoder, 8);
+    }
+
+    public void startCapture(FrameEncoder encoder, int slots) throws IOException {
+        stopCapture();
+        capture = new FrameCapture(target.getWidth(), target.getHeight(), encoder, slots);
+        if (renderThread != null) {
+            renderThread.setCapture(capture);
+        }
+    }
+
+    public void stopCapture() throws IOException {
+        if (capture == null) return;
+
+        if (renderThread != null) {
+            renderThread.setCapture(null);
+        }
+        capture.close();
+        capture = null;
+    }
+
 //  ----- Input -----
 
+    public Input getInput() {
+        return input;
+    }
+
+    // Fixed-step ticks run so far.
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    // Logs every tick's input for ReplayRunner until stopRecording.
+    public void startRecording(OutputStream out) throws IOException {
+        stopRecording();
+        inputRecorder = new InputRecorder(out, target.getWidth(), target.getHeight());
+    }
+
+    public void stopRecording() throws IOException {
+        if (inputRecorder == null) return;
+
+        inputRecorder.close();
+        inputRecorder = null;
+    }
+
     public int mouseX() {
         return input.getMouseX();
     }
@@ -0,0 +1,346 @@
+package com.pixelengine.engine;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Scales the framebuffer up to the device with nearest neighbour in
+// software, into a device sized buffer that is reused every frame, so the
+// window only has to copy it out unscaled. Each source row is scaled once
+// and the device rows that repeat it are copied, bands of rows run in
+// parallel on the pool.
+public class Presenter {
+    private RenderTarget source;
+    private int deviceWidth, deviceHeight;
+    private int[] device;
+    private BufferedImage image;
+
+    private ScaleMode scaleMode = ScaleMode.INTEGER;
+    private int letterbox = 0;
+
+    // The part of the device the frame covers, the rest is letterbox
+    private int viewX, viewY, viewWidth, viewHeight;
+    // Source column and row for each device column and row in the view
+    private int[] columns = new int[0];
+    private int[] rows = new int[0];
+    // Device columns per source column when the scale is whole, 0 when it is not
+    private int scaleX;
+
+    private boolean parallel = true;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private BandTask[] bands = new BandTask[0];
+    private PresentTask presentTask = new PresentTask();
+
+    public Presenter(RenderTarget source, int deviceWidth, int deviceHeight) {
+        this.source = source;
+        resize(deviceWidth, deviceHeight);
+    }
+
+    public void resize(int deviceWidth, int deviceHeight) {
+        if (deviceWidth <= 0 || deviceHeight <= 0) {
+            throw new IllegalArgumentException("Device size must be positive, got " + deviceWidth + "x" + deviceHeight);
+        }
+        if (device == null || this.deviceWidth != deviceWidth || this.deviceHeight != deviceHeight) {
+            this.deviceWidth = deviceWidth;
+            this.deviceHeight = deviceHeight;
+            device = new int[deviceWidth * deviceHeight];
+
+            DataBufferInt buffer = new DataBufferInt(device, device.length);
+            WritableRaster raster = Raster.createPackedRaster(buffer, deviceWidth, deviceHeight, deviceWidth, new int[] {0xff0000, 0xff00, 0xff}, null);
+            image = new BufferedImage(new DirectColorModel(24, 0xff0000, 0xff00, 0xff), raster, false, null);
+        }
+        layout();
+    }
+
+    private void layout() {
+        int width = source.getWidth();
+        int height = source.getHeight();
+
+        ScaleMode mode = scaleMode;
+        int scale = Math.min(deviceWidth / width, deviceHeight / height);
+        if (mode == ScaleMode.INTEGER && scale == 0) {
+            mode = ScaleMode.FIT;
+        }
+        switch (mode) {
+            case INTEGER:
+                viewWidth = width * scale;
+                viewHeight = height * scale;
+                break;
+            case FIT:
+                if ((long) deviceWidth * height <= (long) deviceHeight * width) {
+                    viewWidth = deviceWidth;
+                    viewHeight = Math.max((int) ((long) deviceWidth * height / width), 1);
+                } else {
+                    viewWidth = Math.max((int) ((long) deviceHeight * width / height), 1);
+                    viewHeight = deviceHeight;
+                }
+                break;
+            case STRETCH:
+                viewWidth = deviceWidth;
+                viewHeight = deviceHeight;
+                break;
+        }
+        viewX = (deviceWidth - viewWidth) / 2;
+        viewY = (deviceHeight - viewHeight) / 2;
+        scaleX = viewWidth % width == 0 ? viewWidth / width : 0;
+
+        columns = new int[viewWidth];
+        for (int i = 0; i < viewWidth; i++) {
+            columns[i] = (int) ((long) i * width / viewWidth);
+        }
+        rows = new int[viewHeight];
+        for (int i = 0; i < viewHeight; i++) {
+            rows[i] = (int) ((long) i * height / viewHeight);
+        }
+
+        // The letterbox never changes, so it is only painted here
+        Arrays.fill(device, letterbox);
+    }
+
+//  ----- Presenting -----
+
+    public void present() {
+        present(0, 0, source.getWidth(), source.getHeight());
+    }
+
+    // Scales the source rectangle from (x0, y0) to (x1, y1) into the device
+    // buffer, deviceX and deviceY say where it landed.
+    public void present(int x0, int y0, int x1, int y1) {
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, source.getWidth());
+        y1 = Math.min(y1, source.getHeight());
+        if (x0 >= x1 || y0 >= y1) return;
+
+        int dx0 = deviceX(x0) - viewX, dx1 = deviceX(x1) - viewX;
+        int dy0 = deviceY(y0) - viewY, dy1 = deviceY(y1) - viewY;
+        if (dx0 >= dx1 || dy0 >= dy1) return;
+
+        int bandCount = Math.min(pool.getParallelism(), (dy1 - dy0) / 64);
+        if (!parallel || bandCount < 2) {
+            scaleRows(dx0, dx1, dy0, dy1);
+            return;
+        }
+
+        if (bands.length != bandCount) {
+            bands = new BandTask[bandCount];
+            for (int i = 0; i < bandCount; i++) {
+                bands[i] = new BandTask();
+            }
+        }
+        for (int i = 0; i < bandCount; i++) {
+            BandTask band = bands[i];
+            band.reinitialize();
+            band.x0 = dx0;
+            band.x1 = dx1;
+            band.y0 = dy0 + (dy1 - dy0) * i / bandCount;
+            band.y1 = dy0 + (dy1 - dy0) * (i + 1) / bandCount;
+        }
+        presentTask.reinitialize();
+        pool.invoke(presentTask);
+    }
+
+    // Scales the view columns x0 to x1 of the view rows y0 to y1.
+    private void scaleRows(int x0, int x1, int y0, int y1) {
+        int[] pixels = source.getPixels();
+        int width = source.getWidth();
+        int length = x1 - x0;
+        int lastRow = -1;
+        int lastStart = 0;
+
+        for (int y = y0; y < y1; y++) {
+            int row = rows[y];
+            int start = (viewY + y) * deviceWidth + viewX + x0;
+            if (row == lastRow) {
+                System.arraycopy(device, lastStart, device, start, length);
+                continue;
+            }
+
+            int in = row * width + columns[x0];
+            if (scaleX > 0) {
+                // Whole scales repeat each source pixel scaleX times, the
+                // first and last pixel may be cut short by the rectangle
+                int out = start;
+                int end = start + length;
+                int first = Math.min(scaleX - x0 % scaleX, length);
+                int pixel = pixels[in++];
+                for (int i = 0; i < first; i++) {
+                    device[out++] = pixel;
+                }
+                int whole = (end - out) / scaleX;
+                out = repeat(pixels, in, device, out, whole);
+                in += whole;
+                if (out < end) {
+                    pixel = pixels[in];
+                    while (out < end) {
+                        device[out++] = pixel;
+                    }
+                }
+            } else {
+                int base = row * width;
+                for (int x = x0; x < x1; x++) {
+                    device[start + x - x0] = pixels[base + columns[x]];
+                }
+            }
+            lastRow = row;
+            lastStart = start;
+        }
+    }
+
+    // Writes count source pixels scaleX times each, the common scales get
+    // their own loops so the inner loop is not a loop.
+    private int repeat(int[] pixels, int in, int[] device, int out, int count) {
+        switch (scaleX) {
+            case 1:
+                System.arraycopy(pixels, in, device, out, count);
+                return out + count;
+            case 2:
+                for (int i = 0; i < count; i++, out += 2) {
+                    int pixel = pixels[in + i];
+                    device[out] = pixel;
+                    device[out + 1] = pixel;
+                }
+                return out;
+            case 3:
+                for (int i = 0; i < count; i++, out += 3) {
+                    int pixel = pixels[in + i];
+                    device[out] = pixel;
+                    device[out + 1] = pixel;
+                    device[out + 2] = pixel;
+                }
+                return out;
+            case 4:
+                for (int i = 0; i < count; i++, out += 4) {
+                    int pixel = pixels[in + i];
+                    device[out] = pixel;
+                    device[out + 1] = pixel;
+                    device[out + 2] = pixel;
+                    device[out + 3] = pixel;
+                }
+                return out;
+            default:
+                for (int i = 0; i < count; i++) {
+                    int pixel = pixels[in + i];
+                    for (int j = 0; j < scaleX; j++) {
+                        device[out++] = pixel;
+                    }
+                }
+                return out;
+        }
+    }
+
+    private class PresentTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            invokeAll(bands);
+        }
+    }
+
+    private class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int x0, x1, y0, y1;
+
+        @Override
+        protected void compute() {
+            scaleRows(x0, x1, y0, y1);
+        }
+    }
+
+//  ----- Coordinates -----
+
+    // The first device column that shows source column x, or the end of the
+    // view for the source width.
+    public int deviceX(int x) {
+        return viewX + (int) (((long) x * viewWidth + source.getWidth() - 1) / source.getWidth());
+    }
+
+    public int deviceY(int y) {
+        return viewY + (int) (((long) y * viewHeight + source.getHeight() - 1) / source.getHeight());
+    }
+
+    // The source column shown at device column x, outside the view when x is
+    // in the letterbox.
+    public int sourceX(int x) {
+        return (int) Math.floorDiv((long) (x - viewX) * source.getWidth(), viewWidth);
+    }
+
+    public int sourceY(int y) {
+        return (int) Math.floorDiv((long) (y - viewY) * source.getHeight(), viewHeight);
+    }
+
+//  ----- Getters & Setters -----
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int[] getPixels() {
+        return device;
+    }
+
+    public int getDeviceWidth() {
+        return deviceWidth;
+    }
+
+    public int getDeviceHeight() {
+        return deviceHeight;
+    }
+
+    public int getViewX() {
+        return viewX;
+    }
+
+    public int getViewY() {
+        return viewY;
+    }
+
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    public ScaleMode getScaleMode() {
+        return scaleMode;
+    }
+
+    public void setScaleMode(ScaleMode scaleMode) {
+        this.scaleMode = scaleMode;
+        layout();
+    }
+
+    public int getLetterbox() {
+        return letterbox;
+    }
+
+    public void setLetterbox(int letterbox) {
+        this.letterbox = letterbox;
+        layout();
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        bands = new BandTask[0];
+    }
+}
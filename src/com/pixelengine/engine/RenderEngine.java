@@ -1,224 +1,1284 @@
 package com.pixelengine.engine;
 
+import com.pixelengine.engine.gfx.Blend;
+import com.pixelengine.engine.gfx.CompiledSprite;
+import com.pixelengine.engine.gfx.Coverage;
 import com.pixelengine.engine.gfx.Font;
+import com.pixelengine.engine.gfx.Glyph;
 import com.pixelengine.engine.gfx.Image;
-import com.pixelengine.engine.gfx.ImageRequest;
+import com.pixelengine.engine.gfx.ImageRegion;
 import com.pixelengine.engine.gfx.ImageTile;
+import com.pixelengine.engine.gfx.Orientation;
+import com.pixelengine.engine.gfx.PixelKernels;
+import com.pixelengine.engine.gfx.Primitives;
+import com.pixelengine.engine.gfx.TextCache;
+import com.pixelengine.engine.gfx.TileMap;
+import com.pixelengine.engine.gfx.Transform;
+import com.pixelengine.engine.gfx.TransformCache;
 
-import java.awt.image.DataBufferInt;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class RenderEngine {
     private Font font = Font.STANDARD;
-    private ArrayList<ImageRequest> imageRequest = new ArrayList<ImageRequest>();
+    private TextCache textCache = new TextCache();
+    private boolean textCaching = true;
+    private Primitives primitives = new Primitives();
+    private Transform transform = new Transform();
+    private TransformCache transformCache = new TransformCache();
+    private boolean transformCaching = false;
+    private int[] rowBuffer = new int[0];
+    private DrawList drawList = new DrawList();
+    private boolean recording = false;
 
+    private boolean damageTracking = false;
+    private DamageTracker damage;
+    private DrawList previous = new DrawList();
+    private boolean previousValid = false;
+
+    private RenderTarget target;
     private int pixelWidth, pixelHeight;
     private int[] pixels;
     private int[] zBuffer;
+    private DepthMode depthMode = DepthMode.BUFFER;
+    private boolean depthResetPending = false;
+    private long[] depthStamps;
+    private long depthLimit, depthFloor;
+    private int clipX0, clipY0, clipX1, clipY1;
+    private PixelKernels kernels = PixelKernels.getDefault();
+
+    private boolean parallel = false;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private ProcessTask processTask = new ProcessTask();
+    private BandTask[] bands = new BandTask[0];
+    private CommandBuffer processing;
+
+    // Runs shorter than this are copied by hand, arraycopy only pays off past it
+    private static final int SHORT_RUN = 8;
 
     private int zDepth = 0;
-    private boolean processing = false;
 
-    public RenderEngine(int width, int height, Window window) {
-        pixelWidth = width;
-        pixelHeight = height;
-        pixels = ((DataBufferInt)window.getImage().getRaster().getDataBuffer()).getData();
-        zBuffer = new int[pixels.length];
+    private FrameProfiler profiler;
+    private long drawCalls, pixelsWritten, pixelsRejected;
+
+    public RenderEngine(RenderTarget target) {
+        this.target = target;
+        pixelWidth = target.getWidth();
+        pixelHeight = target.getHeight();
+        pixels = target.getPixels();
+        zBuffer = target.getzBuffer();
+        damage = new DamageTracker(pixelWidth, pixelHeight);
+        resetClip();
     }
 
     public void clear() {
-        for (int i = 0; i < pixels.length; i++) {
-            pixels[i] = 0;
-            zBuffer[i] = 0;
+        long start = System.nanoTime();
+
+        kernels.fill(pixels, 0, pixels.length, 0);
+        if (depthMode == DepthMode.GENERATION) {
+            target.nextGeneration();
+        } else if (depthMode == DepthMode.BUFFER) {
+            kernels.fill(zBuffer, 0, zBuffer.length, 0);
+        }
+
+        if (profiler != null) {
+            profiler.record(FrameProfiler.CLEAR, System.nanoTime() - start);
         }
     }
 
     public void process() {
-        processing = true;
+        CommandBuffer queue = drawList.getQueue();
+        sortQueue(queue);
+        drawCalls += queue.size();
+        drawQueue(queue);
+        queue.clear();
+    }
+
+    private void sortQueue(CommandBuffer queue) {
+        long start = System.nanoTime();
+        queue.sort();
+
+        if (profiler != null) {
+            profiler.record(FrameProfiler.SORT, System.nanoTime() - start);
+        }
+    }
+
+    private void drawQueue(CommandBuffer queue) {
+        long start = System.nanoTime();
+
+        if (parallel && queue.size() > 1 && pool.getParallelism() > 1) {
+            pool.invoke(processTask.prepare(queue));
+            for (int i = 0; i < bands.length; i++) {
+                RenderEngine engine = bands[i].engine;
+                pixelsWritten += engine.pixelsWritten;
+                pixelsRejected += engine.pixelsRejected;
+                engine.pixelsWritten = 0;
+                engine.pixelsRejected = 0;
+            }
+        } else {
+            int depth = zDepth;
+            for (int i = 0; i < queue.size(); i++) {
+                drawCommand(queue, queue.order(i));
+            }
+            zDepth = depth;
+        }
+
+        if (profiler != null) {
+            profiler.record(FrameProfiler.RASTERIZE, System.nanoTime() - start);
+        }
+    }
+
+//  ----- Recording -----
+
+    // Rasterizes a recorded frame: the deferred queue sorted by depth first,
+    // then the immediate draws in the order they were made. With damage
+    // tracking on, only the rectangles that changed since the previous frame
+    // are cleared and redrawn.
+    public void render(DrawList list) {
+        boolean wasRecording = recording;
+        recording = false;
+        long calls = drawCalls;
+        resetDepth();
+
+        if (damageTracking) {
+            computeDamage(list);
+        } else {
+            damage.addFull();
+        }
+
+        if (!damage.isEmpty()) {
+            sortQueue(list.getQueue());
+
+            if (damage.isFull()) {
+                clear();
+                drawQueue(list.getQueue());
+                replay(list);
+            } else {
+                int x0 = clipX0, y0 = clipY0, x1 = clipX1, y1 = clipY1;
+                int[] rects = damage.getRects();
+                for (int i = 0; i < damage.size(); i++) {
+                    int base = i * 4;
+                    setClip(rects[base], rects[base + 1], rects[base + 2] - rects[base], rects[base + 3] - rects[base + 1]);
+                    clearClip();
+                    drawQueue(list.getQueue());
+                    replay(list);
+                }
+                clipX0 = x0;
+                clipY0 = y0;
+                clipX1 = x1;
+                clipY1 = y1;
+            }
+            drawCalls = calls + list.size() + list.getQueue().size();
+        }
+
+        if (damageTracking) {
+            previous.copyFrom(list);
+            previousValid = true;
+        }
+        list.clear();
+        recording = wasRecording;
+        flushStats();
+    }
+
+    private void replay(DrawList list) {
+        long start = System.nanoTime();
+
+        int depth = zDepth;
+        for (int i = 0; i < list.size(); i++) {
+            zDepth = list.getzDepth(i);
+            switch (list.getType(i)) {
+                case DrawList.PIXEL:
+                    setPixel(list.getArg(i, 0), list.getArg(i, 1), list.getArg(i, 2));
+                    break;
+                case DrawList.TEXT:
+                    drawText((String) list.getRef(i), list.getArg(i, 0), list.getArg(i, 1), list.getArg(i, 2));
+                    break;
+                case DrawList.IMAGE:
+                    blit((ImageRegion) list.getRef(i), list.getArg(i, 0), list.getArg(i, 1));
+                    break;
+                case DrawList.SPRITE:
+                    blitSprite((CompiledSprite) list.getRef(i), list.getArg(i, 0), list.getArg(i, 1));
+                    break;
+                case DrawList.IMAGE_ORIENTED:
+                    blitOriented((ImageRegion) list.getRef(i), list.getArg(i, 0), list.getArg(i, 1), Orientation.of(list.getArg(i, 2)));
+                    break;
+                case DrawList.IMAGE_TRANSFORM:
+                    blitTransformed((ImageRegion) list.getRef(i), list.getArg(i, 0), list.getArg(i, 1),
+                            Float.intBitsToFloat(list.getArg(i, 2)), Float.intBitsToFloat(list.getArg(i, 3)));
+                    break;
+                case DrawList.RECT:
+                    drawRect(list.getArg(i, 0), list.getArg(i, 1), list.getArg(i, 2), list.getArg(i, 3), list.getArg(i, 4));
+                    break;
+                case DrawList.RECT_STROKE:
+                    drawRectStroke(list.getArg(i, 0), list.getArg(i, 1), list.getArg(i, 2), list.getArg(i, 3), list.getArg(i, 4), list.getArg(i, 5));
+                    break;
+                case DrawList.LINE:
+                    drawLine(list.getArg(i, 0), list.getArg(i, 1), list.getArg(i, 2), list.getArg(i, 3), list.getArg(i, 4), list.getArg(i, 5));
+                    break;
+                case DrawList.ELLIPSE:
+                    drawEllipse(list.getArg(i, 0), list.getArg(i, 1), list.getArg(i, 2), list.getArg(i, 3), list.getArg(i, 4));
+                    break;
+                case DrawList.ELLIPSE_FILL:
+                    fillEllipse(list.getArg(i, 0), list.getArg(i, 1), list.getArg(i, 2), list.getArg(i, 3), list.getArg(i, 4));
+                    break;
+                case DrawList.POLYGON:
+                    int[][] vertices = (int[][]) list.getRef(i);
+                    fillPolygon(vertices[0], vertices[1], vertices[0].length, list.getArg(i, 4));
+                    break;
+            }
+        }
+        zDepth = depth;
+
+        if (profiler != null) {
+            profiler.record(FrameProfiler.RASTERIZE, System.nanoTime() - start);
+        }
+    }
+
+    private void clearClip() {
+        long start = System.nanoTime();
+
+        for (int y = clipY0; y < clipY1; y++) {
+            int index = clipX0 + y * pixelWidth;
+            kernels.fill(pixels, index, index + clipX1 - clipX0, 0);
+            clearDepth(index, index + clipX1 - clipX0);
+        }
+
+        if (profiler != null) {
+            profiler.record(FrameProfiler.CLEAR, System.nanoTime() - start);
+        }
+    }
+
+//  ----- Damage Tracking -----
+
+    // Compares the frame with the previous one command by command and marks
+    // the old and new bounds of everything that differs. Changes to an
+    // image's pixels are not detected, call invalidate() after editing them.
+    private void computeDamage(DrawList list) {
+        damage.clear();
+        if (!previousValid) {
+            damage.addFull();
+            return;
+        }
+
+        CommandBuffer queue = list.getQueue();
+        CommandBuffer previousQueue = previous.getQueue();
+        int count = Math.max(queue.size(), previousQueue.size());
+        for (int i = 0; i < count && !damage.isFull(); i++) {
+            boolean inCurrent = i < queue.size();
+            boolean inPrevious = i < previousQueue.size();
+            if (inCurrent && inPrevious && queue.sameCommand(previousQueue, i)) continue;
+
+            if (inCurrent) addDamage(queue, i);
+            if (inPrevious) addDamage(previousQueue, i);
+        }
+
+        count = Math.max(list.size(), previous.size());
+        for (int i = 0; i < count && !damage.isFull(); i++) {
+            boolean inCurrent = i < list.size();
+            boolean inPrevious = i < previous.size();
+            if (inCurrent && inPrevious && list.sameCommand(previous, i)) continue;
+
+            if (inCurrent) addDamage(list, i);
+            if (inPrevious) addDamage(previous, i);
+        }
+    }
+
+    private void addDamage(CommandBuffer queue, int index) {
+        ImageRegion region = queue.getRegion(index);
+        int x = queue.getX(index);
+        int y = queue.getY(index);
+        damage.add(x, y, x + region.getWidth(), y + region.getHeight());
+    }
+
+    private void addDamage(DrawList list, int index) {
+        int x = list.getArg(index, 0);
+        int y = list.getArg(index, 1);
+
+        switch (list.getType(index)) {
+            case DrawList.PIXEL:
+                damage.add(x, y, x + 1, y + 1);
+                break;
+            case DrawList.TEXT:
+                damage.add(x, y, x + getTextWidth((String) list.getRef(index)), y + font.getHeight());
+                break;
+            case DrawList.IMAGE:
+                ImageRegion region = (ImageRegion) list.getRef(index);
+                damage.add(x, y, x + region.getWidth(), y + region.getHeight());
+                break;
+            case DrawList.SPRITE:
+                CompiledSprite sprite = (CompiledSprite) list.getRef(index);
+                damage.add(x, y, x + sprite.getWidth(), y + sprite.getHeight());
+                break;
+            case DrawList.IMAGE_ORIENTED:
+                ImageRegion oriented = (ImageRegion) list.getRef(index);
+                Orientation orientation = Orientation.of(list.getArg(index, 2));
+                damage.add(x, y, x + orientation.getWidth(oriented.getWidth(), oriented.getHeight()),
+                        y + orientation.getHeight(oriented.getWidth(), oriented.getHeight()));
+                break;
+            case DrawList.IMAGE_TRANSFORM:
+                ImageRegion transformed = (ImageRegion) list.getRef(index);
+                transform.set(transformed.getWidth(), transformed.getHeight(),
+                        Float.intBitsToFloat(list.getArg(index, 2)), Float.intBitsToFloat(list.getArg(index, 3)));
+                damage.add(x + transform.getLeft(), y + transform.getTop(), x + transform.getRight(), y + transform.getBottom());
+                break;
+            case DrawList.RECT:
+            case DrawList.RECT_STROKE:
+                damage.add(x, y, x + list.getArg(index, 2) + 1, y + list.getArg(index, 3) + 1);
+                break;
+            case DrawList.LINE:
+                int x2 = list.getArg(index, 2);
+                int y2 = list.getArg(index, 3);
+                int pad = Math.max(list.getArg(index, 4), 1);
+                damage.add(Math.min(x, x2) - pad, Math.min(y, y2) - pad, Math.max(x, x2) + pad + 1, Math.max(y, y2) + pad + 1);
+                break;
+            case DrawList.ELLIPSE:
+            case DrawList.ELLIPSE_FILL:
+                int rx = list.getArg(index, 2);
+                int ry = list.getArg(index, 3);
+                damage.add(x - rx, y - ry, x + rx + 1, y + ry + 1);
+                break;
+            case DrawList.POLYGON:
+                damage.add(x, y, list.getArg(index, 2), list.getArg(index, 3));
+                break;
+            default:
+                damage.addFull();
+                break;
+        }
+    }
+
+    // Forces the next rendered frame to be redrawn in full.
+    public void invalidate() {
+        previousValid = false;
+    }
+
+    public DamageTracker getDamage() {
+        return damage;
+    }
+
+    public boolean isDamageTracking() {
+        return damageTracking;
+    }
+
+    public void setDamageTracking(boolean damageTracking) {
+        this.damageTracking = damageTracking;
+        previousValid = false;
+    }
+
+    // Hands the counters gathered since the last flush to the profiler.
+    public void flushStats() {
+        if (profiler != null) {
+            profiler.count(drawCalls, pixelsWritten, pixelsRejected);
+        }
+        drawCalls = 0;
+        pixelsWritten = 0;
+        pixelsRejected = 0;
+    }
+
+    // Hands back the frame recorded so far and continues recording into the
+    // given list, which is cleared first.
+    public DrawList swapDrawList(DrawList next) {
+        DrawList recorded = drawList;
+        next.clear();
+        drawList = next;
+        return recorded;
+    }
+
+    private void drawCommand(CommandBuffer queue, int index) {
+        zDepth = queue.getzDepth(index);
+        blit(queue.getRegion(index), queue.getX(index), queue.getY(index));
+    }
+
+//  ----- Parallel Processing -----
+
+    // Splits the screen into horizontal bands that each own their rows. Every
+    // band draws the requests that overlap it in the same sorted order, so the
+    // result is identical to drawing them serially.
+    private class ProcessTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private ProcessTask prepare(CommandBuffer queue) {
+            reinitialize();
+            processing = queue;
+
+            int bandCount = Math.min(pool.getParallelism(), pixelHeight);
+            if (bands.length != bandCount) {
+                bands = new BandTask[bandCount];
+                for (int i = 0; i < bandCount; i++) {
+                    int y0 = pixelHeight * i / bandCount;
+                    int y1 = pixelHeight * (i + 1) / bandCount;
+                    bands[i] = new BandTask(y0, y1);
+                }
+            }
 
-        Collections.sort(imageRequest, new Comparator<ImageRequest>() {
-            @Override
-            public int compare(ImageRequest i0, ImageRequest i1) {
-                if (i0.zDepth < i1.zDepth)  {
-                    return -1;
+            for (int i = 0; i < bands.length; i++) {
+                BandTask band = bands[i];
+                band.reinitialize();
+                band.count = 0;
+                band.engine.depthMode = depthMode;
+                band.engine.kernels = kernels;
+
+                int top = Math.max(band.y0, clipY0);
+                band.engine.setClip(clipX0, top, clipX1 - clipX0, Math.min(band.y1, clipY1) - top);
+            }
+
+//          ----- Bin each request into the bands it touches -----
+            int bandHeight = (pixelHeight + bands.length - 1) / bands.length;
+            for (int i = 0; i < queue.size(); i++) {
+                int index = queue.order(i);
+                int x = queue.getX(index);
+                int y = queue.getY(index);
+                int top = Math.max(y, 0);
+                ImageRegion region = queue.getRegion(index);
+                int bottom = Math.min(y + region.getHeight(), pixelHeight);
+                if (top >= bottom || x >= pixelWidth || x + region.getWidth() <= 0) {
+                    continue;
                 }
-                if (i0.zDepth > i1.zDepth)  {
-                    return 1;
+                for (int b = top / bandHeight; b < bands.length && bands[b].y0 < bottom; b++) {
+                    if (bands[b].y1 > top) {
+                        bands[b].add(index);
+                    }
                 }
-                return 0;
             }
-        });
+            return this;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(bands);
+        }
+    }
+
+    private class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int y0, y1;
+        private final RenderEngine engine;
+        private int[] requests = new int[64];
+        private int count;
+
+        private BandTask(int y0, int y1) {
+            this.y0 = y0;
+            this.y1 = y1;
+            engine = new RenderEngine(target);
+            engine.font = font;
+        }
+
+        private void add(int request) {
+            if (count == requests.length) {
+                requests = Arrays.copyOf(requests, count * 2);
+            }
+            requests[count++] = request;
+        }
 
-        for (int i = 0; i < imageRequest.size(); i++) {
-            ImageRequest ir = imageRequest.get(i);
-            setzDepth(ir.zDepth);
-            drawImage(ir.image, ir.offX, ir.offY);
+        @Override
+        protected void compute() {
+            for (int i = 0; i < count; i++) {
+                engine.drawCommand(processing, requests[i]);
+            }
         }
-        imageRequest.clear();
-        processing = false;
     }
 
     public void setPixel(int x, int y, int value) {
+        if (recording) {
+            drawList.add(DrawList.PIXEL, zDepth, null, x, y, value, 0, 0, 0);
+            return;
+        }
+
         int alpha = ((value >> 24) & 0xff);
 
-        if ((x < 0 || x >= pixelWidth || y < 0 || y >= pixelHeight) || alpha == 0) {
+        if ((x < clipX0 || x >= clipX1 || y < clipY0 || y >= clipY1) || alpha == 0) {
             return;
         }
 
         int index = x + y * pixelWidth;
 
-        if (zBuffer[index] > zDepth) {
+        prepareDepth();
+        if (!depthPasses(index)) {
+            pixelsRejected++;
             return;
         }
-        zBuffer[index] = zDepth;
+        writeDepth(index, index + 1);
+        pixelsWritten++;
 
         if (alpha == 255) {
             pixels[index] = value;
         } else {
-            int pixelColor = pixels[index];
-
-            int newRed = ((pixelColor >> 16) & 0xff) - (int) ((((pixelColor >> 16) & 0xff) - ((value >> 16) & 0xff)) * (alpha / 255f));
-            int newGreen = ((pixelColor >> 8) & 0xff) - (int) ((((pixelColor >> 8) & 0xff) - ((value >> 8) & 0xff)) * (alpha / 255f));
-            int newBlue = (pixelColor & 0xff) - (int) (((pixelColor & 0xff) - (value & 0xff)) * (alpha / 255f));
-
-            pixels[index] = (255 << 24 | newRed << 16 | newGreen << 8 | newBlue);
+            pixels[index] = Blend.blend(pixels[index], value);
         }
     }
 
+    public int getTextWidth(String text) {
+        return font.getTextWidth(text);
+    }
+
     public void drawText(String text, int offX, int offY, int color) {
-        int offset = 0;
-
-        for (int i = 0; i < text.length(); i++) {
-            int unicode = text.codePointAt(i);
-            for (int y = 0; y < font.getFontImage().getHeight(); y++) {
-                for (int x = 0; x < font.getWidths()[unicode]; x++) {
-                    if (font.getFontImage().getPixels()[(x + font.getOffsets()[unicode]) + y * font.getFontImage().getWidth()] == 0xffffffff) {
-                        setPixel(x + offX + offset, y + offY, color);
-                    }
-                }
+        if (recording) {
+            drawList.add(DrawList.TEXT, zDepth, text, offX, offY, color, 0, 0, 0);
+            return;
+        }
+        drawCalls++;
+
+        if ((color >>> 24) == 0) return;
+
+        if (textCaching) {
+            blit(textCache.get(font, text, color), offX, offY);
+            return;
+        }
+
+        for (int i = 0; i < text.length(); ) {
+            int codepoint = text.codePointAt(i);
+            i += Character.charCount(codepoint);
+
+            Glyph glyph = font.getGlyph(codepoint);
+            if (glyph == null) continue;
+
+            int[] spans = glyph.getSpans();
+            for (int s = 0; s < spans.length; s += 3) {
+                int y = offY + spans[s];
+                fillRect(offX + spans[s + 1], y, offX + spans[s + 2], y + 1, color);
             }
-            offset += font.getWidths()[unicode];
+            offX += glyph.getWidth();
         }
     }
 
     public void drawImage(Image image, int offX, int offY) {
+        drawImage(image.getRegion(), offX, offY);
+    }
+
+    public void drawImageTile(ImageTile image, int offX, int offY, int tileX, int tileY) {
+        drawImage(image.getTile(tileX, tileY), offX, offY);
+    }
+
+    // Draws the chunks of the map that intersect the clip rectangle, with the
+    // map's top left corner at offX, offY.
+    public void drawTileMap(TileMap map, int offX, int offY) {
+        int chunkWidth = map.getChunkPixelWidth();
+        int chunkHeight = map.getChunkPixelHeight();
+
+        int chunkX0 = Math.max(Math.floorDiv(clipX0 - offX, chunkWidth), 0);
+        int chunkY0 = Math.max(Math.floorDiv(clipY0 - offY, chunkHeight), 0);
+        int chunkX1 = Math.min(Math.floorDiv(clipX1 - 1 - offX, chunkWidth) + 1, map.getChunkColumns());
+        int chunkY1 = Math.min(Math.floorDiv(clipY1 - 1 - offY, chunkHeight) + 1, map.getChunkRows());
+
+        for (int chunkY = chunkY0; chunkY < chunkY1; chunkY++) {
+            for (int chunkX = chunkX0; chunkX < chunkX1; chunkX++) {
+                drawImage(map.getChunk(chunkX, chunkY), offX + chunkX * chunkWidth, offY + chunkY * chunkHeight);
+            }
+        }
+    }
 
-        if (!image.isAlpha() && !processing) {
-            imageRequest.add(new ImageRequest(image, zDepth, offX, offY));
+    public void drawImage(ImageRegion region, int offX, int offY) {
+        if (region.getCoverage() == Coverage.TRANSPARENT) return;
+
+        if (!region.getImage().isAlpha()) {
+            drawList.getQueue().add(region, zDepth, offX, offY);
             return;
         }
 
-//      ----- Don't Render Code -----
-        if (offX < -image.getWidth()) return;
-        if (offY < -image.getHeight()) return;
-        if (offX >= pixelWidth) return;
-        if (offY >= pixelHeight) return;
+        if (recording) {
+            drawList.add(DrawList.IMAGE, zDepth, region, offX, offY, 0, 0, 0, 0);
+            return;
+        }
+        drawCalls++;
 
-        int newX = 0, newY = 0, newWidth = image.getWidth(), newHeight = image.getHeight();
+        blit(region, offX, offY);
+    }
 
-//      ----- Clipping Code -----
-        if (offX < 0) { newX -= offX; }
-        if (offY < 0) { newY -= offY; }
-        if (newWidth + offX >= pixelWidth) { newWidth -= newWidth + offX - pixelWidth; }
-        if (newHeight + offY >= pixelHeight) { newHeight -= newHeight + offY - pixelHeight; }
+    public void drawImage(Image image, int offX, int offY, Orientation orientation) {
+        drawImage(image.getRegion(), offX, offY, orientation);
+    }
 
+    // Flipped and quarter turned images are drawn immediately, like alpha
+    // images, reading the source pixels in the remapped order.
+    public void drawImage(ImageRegion region, int offX, int offY, Orientation orientation) {
+        if (orientation == Orientation.NORMAL) {
+            drawImage(region, offX, offY);
+            return;
+        }
+        if (region.getCoverage() == Coverage.TRANSPARENT) return;
 
-        for (int x = 0; x < image.getWidth(); x++) {
-            for (int y = 0; y < image.getHeight(); y++) {
-                setPixel(x + offX, y + offY, image.getPixels()[x + y * image.getWidth()]);
-            }
+        if (recording) {
+            drawList.add(DrawList.IMAGE_ORIENTED, zDepth, region, offX, offY, orientation.ordinal(), 0, 0, 0);
+            return;
         }
+        drawCalls++;
+
+        blitOriented(region, offX, offY, orientation);
     }
 
-    public void drawImageTile(ImageTile image, int offX, int offY, int tileX, int tileY) {
+    public void drawImage(Image image, int centerX, int centerY, float angle, float scale) {
+        drawImage(image.getRegion(), centerX, centerY, angle, scale);
+    }
+
+    // Draws the region rotated clockwise by angle radians and scaled about
+    // its center, with the center on centerX, centerY. With transform
+    // caching on, each angle and scale is rasterized once and then blitted.
+    public void drawImage(ImageRegion region, int centerX, int centerY, float angle, float scale) {
+        Transform.check(angle, scale);
+        if (region.getCoverage() == Coverage.TRANSPARENT) return;
+
+        if (recording) {
+            drawList.add(DrawList.IMAGE_TRANSFORM, zDepth, region, centerX, centerY,
+                    Float.floatToIntBits(angle), Float.floatToIntBits(scale), 0, 0);
+            return;
+        }
+        drawCalls++;
+
+        blitTransformed(region, centerX, centerY, angle, scale);
+    }
+
+    // Compiled sprites are always drawn immediately, like alpha images.
+    public void drawSprite(CompiledSprite sprite, int offX, int offY) {
+        if (sprite.isEmpty()) return;
+
+        if (recording) {
+            drawList.add(DrawList.SPRITE, zDepth, sprite, offX, offY, 0, 0, 0, 0);
+            return;
+        }
+        drawCalls++;
+
+        blitSprite(sprite, offX, offY);
+    }
+
+    public void drawRectStroke(int offX, int offY, int width, int height, int fill, int stroke) {
+        if (recording) {
+            drawList.add(DrawList.RECT_STROKE, zDepth, null, offX, offY, width, height, fill, stroke);
+            return;
+        }
+        drawCalls++;
+
+        fillRect(offX + 1, offY + 1, offX + width, offY + height, fill);
+
+        fillRect(offX, offY, offX + width + 1, offY + 1, stroke);
+        if (height > 0) {
+            fillRect(offX, offY + height, offX + width + 1, offY + height + 1, stroke);
+        }
+        fillRect(offX, offY + 1, offX + 1, offY + height, stroke);
+        if (width > 0) {
+            fillRect(offX + width, offY + 1, offX + width + 1, offY + height, stroke);
+        }
+    }
+
+    public void drawRect(int offX, int offY, int width, int height, int fill) {
+        if (recording) {
+            drawList.add(DrawList.RECT, zDepth, null, offX, offY, width, height, fill, 0);
+            return;
+        }
+        drawCalls++;
+
+        fillRect(offX, offY, offX + width + 1, offY + height + 1, fill);
+    }
+
+    // Thickness 1 or less is a Bresenham line, anything thicker is filled as
+    // the rectangle around the line.
+    public void drawLine(int x1, int y1, int x2, int y2, int thickness, int color) {
+        if (recording) {
+            drawList.add(DrawList.LINE, zDepth, null, x1, y1, x2, y2, thickness, color);
+            return;
+        }
+        drawCalls++;
+
+        if ((color >>> 24) == 0) return;
+
+        primitives.setRows(clipY0, clipY1);
+        primitives.setColumns(clipX0, clipX1);
+        if (thickness <= 1) {
+            primitives.line(x1, y1, x2, y2);
+        } else {
+            primitives.thickLine(x1, y1, x2, y2, thickness);
+        }
+        fillSpans(primitives.getSpans(), primitives.getSpanCount(), color);
+    }
+
+    public void drawCircle(int centerX, int centerY, int radius, int color) {
+        drawEllipse(centerX, centerY, radius, radius, color);
+    }
+
+    public void fillCircle(int centerX, int centerY, int radius, int color) {
+        fillEllipse(centerX, centerY, radius, radius, color);
+    }
+
+    public void drawEllipse(int centerX, int centerY, int radiusX, int radiusY, int color) {
+        if (recording) {
+            drawList.add(DrawList.ELLIPSE, zDepth, null, centerX, centerY, radiusX, radiusY, color, 0);
+            return;
+        }
+        drawCalls++;
+
+        ellipse(centerX, centerY, radiusX, radiusY, false, color);
+    }
 
-        if (!image.isAlpha() && !processing) {
-            imageRequest.add(new ImageRequest(image.getTileImage(tileX, tileY), zDepth, offX, offY));
+    public void fillEllipse(int centerX, int centerY, int radiusX, int radiusY, int color) {
+        if (recording) {
+            drawList.add(DrawList.ELLIPSE_FILL, zDepth, null, centerX, centerY, radiusX, radiusY, color, 0);
             return;
         }
+        drawCalls++;
+
+        ellipse(centerX, centerY, radiusX, radiusY, true, color);
+    }
+
+    private void ellipse(int centerX, int centerY, int radiusX, int radiusY, boolean filled, int color) {
+        if ((color >>> 24) == 0) return;
+
+        primitives.setRows(clipY0, clipY1);
+        primitives.ellipse(centerX, centerY, radiusX, radiusY, filled);
+        fillSpans(primitives.getSpans(), primitives.getSpanCount(), color);
+    }
+
+    // Fills the polygon through the first vertexCount points with the
+    // even-odd rule, convex or not.
+    public void fillPolygon(int[] xs, int[] ys, int vertexCount, int color) {
+        if (vertexCount < 0 || vertexCount > xs.length || vertexCount > ys.length) {
+            throw new IllegalArgumentException("Vertex count " + vertexCount + " does not fit the vertex arrays");
+        }
+        if (recording) {
+            // The arrays are copied since callers tend to reuse them
+            int[][] vertices = {Arrays.copyOf(xs, vertexCount), Arrays.copyOf(ys, vertexCount)};
+            int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+            for (int i = 0; i < vertexCount; i++) {
+                x0 = Math.min(x0, xs[i]);
+                y0 = Math.min(y0, ys[i]);
+                x1 = Math.max(x1, xs[i] + 1);
+                y1 = Math.max(y1, ys[i] + 1);
+            }
+            drawList.add(DrawList.POLYGON, zDepth, vertices, x0, y0, x1, y1, color, 0);
+            return;
+        }
+        drawCalls++;
+
+        if ((color >>> 24) == 0) return;
+
+        primitives.setRows(clipY0, clipY1);
+        primitives.polygon(xs, ys, vertexCount);
+        fillSpans(primitives.getSpans(), primitives.getSpanCount(), color);
+    }
+
+//  ----- Span Rasterization -----
+
+    private void blit(ImageRegion region, int offX, int offY) {
+        Image image = region.getImage();
+        int width = region.getWidth();
+        int height = region.getHeight();
+
+//      ----- Clipping Code -----
+        int x0 = Math.max(offX, clipX0);
+        int y0 = Math.max(offY, clipY0);
+        int x1 = Math.min(offX + width, clipX1);
+        int y1 = Math.min(offY + height, clipY1);
 
 //      ----- Don't Render Code -----
-        if (offX < -image.getTileWidth()) return;
-        if (offY < -image.getTileHeight()) return;
-        if (offX >= pixelWidth) return;
-        if (offY >= pixelHeight) return;
+        if (x0 >= x1 || y0 >= y1 || region.getCoverage() == Coverage.TRANSPARENT) return;
+
+        int[] src = image.getPixels();
+        int srcStride = image.getWidth();
+        int length = x1 - x0;
+        int srcIndex = (region.getX() + x0 - offX) + (region.getY() + y0 - offY) * srcStride;
+        int dstIndex = x0 + y0 * pixelWidth;
+
+        prepareDepth();
+        if (region.getCoverage() == Coverage.OPAQUE) {
+            for (int y = y0; y < y1; y++) {
+                copyRow(src, srcIndex, dstIndex, length);
+                srcIndex += srcStride;
+                dstIndex += pixelWidth;
+            }
+        } else {
+            boolean premultiplied = image.isPremultiplied();
+            for (int y = y0; y < y1; y++) {
+                blitRow(src, srcIndex, dstIndex, length, premultiplied);
+                srcIndex += srcStride;
+                dstIndex += pixelWidth;
+            }
+        }
+    }
 
-        int newX = 0, newY = 0, newWidth = image.getTileWidth(), newHeight = image.getTileHeight();
+    private void blitOriented(ImageRegion region, int offX, int offY, Orientation orientation) {
+        int width = orientation.getWidth(region.getWidth(), region.getHeight());
+        int height = orientation.getHeight(region.getWidth(), region.getHeight());
 
 //      ----- Clipping Code -----
-        if (offX < 0) { newX -= offX; }
-        if (offY < 0) { newY -= offY; }
-        if (newWidth + offX >= pixelWidth) { newWidth -= newWidth + offX - pixelWidth; }
-        if (newHeight + offY >= pixelHeight) { newHeight -= newHeight + offY - pixelHeight; }
+        int x0 = Math.max(offX, clipX0);
+        int y0 = Math.max(offY, clipY0);
+        int x1 = Math.min(offX + width, clipX1);
+        int y1 = Math.min(offY + height, clipY1);
+
+//      ----- Don't Render Code -----
+        if (x0 >= x1 || y0 >= y1 || region.getCoverage() == Coverage.TRANSPARENT) return;
 
-        for (int x = newX; x < newWidth; x++) {
-            for (int y = newY; y < newHeight; y++) {
-                setPixel(x + offX, y + offY, image.getPixels()[(x + tileX * image.getTileWidth()) + (y + tileY * image.getTileHeight()) * image.getWidth()]);
+        Image image = region.getImage();
+        int[] src = image.getPixels();
+        int stepX = orientation.stepX(region);
+        int stepY = orientation.stepY(region);
+        int length = x1 - x0;
+        int srcIndex = orientation.start(region) + (x0 - offX) * stepX + (y0 - offY) * stepY;
+        int dstIndex = x0 + y0 * pixelWidth;
+        boolean opaque = region.getCoverage() == Coverage.OPAQUE;
+        boolean premultiplied = image.isPremultiplied();
+        int[] row = getRowBuffer();
+
+        prepareDepth();
+        for (int y = y0; y < y1; y++) {
+            int[] rowSrc = src;
+            int rowIndex = srcIndex;
+            // Rows that don't run forward through the source are gathered
+            // first so the copy and blend loops stay the same
+            if (stepX != 1) {
+                for (int i = 0, s = srcIndex; i < length; i++, s += stepX) {
+                    row[i] = src[s];
+                }
+                rowSrc = row;
+                rowIndex = 0;
+            }
+
+            if (opaque) {
+                copyRow(rowSrc, rowIndex, dstIndex, length);
+            } else {
+                blitRow(rowSrc, rowIndex, dstIndex, length, premultiplied);
             }
+            srcIndex += stepY;
+            dstIndex += pixelWidth;
         }
     }
 
-    public void drawRectStroke(int offX, int offY, int width, int height, int fill, int stroke) {
+    // Walks only the rows of the transformed bounds inside the clip, and of
+    // each row only the columns that land inside the source.
+    private void blitTransformed(ImageRegion region, int centerX, int centerY, float angle, float scale) {
+        if (transformCaching) {
+            TransformCache.Variant variant = transformCache.get(region, angle, scale);
+            if (variant != null) {
+                blit(variant.getRegion(), centerX + variant.getOffX(), centerY + variant.getOffY());
+                return;
+            }
+        }
+        transform.set(region.getWidth(), region.getHeight(), angle, scale);
+
+//      ----- Clipping Code -----
+        int x0 = (int) Math.max((long) centerX + transform.getLeft(), clipX0);
+        int y0 = (int) Math.max((long) centerY + transform.getTop(), clipY0);
+        int x1 = (int) Math.min((long) centerX + transform.getRight(), clipX1);
+        int y1 = (int) Math.min((long) centerY + transform.getBottom(), clipY1);
 
 //      ----- Don't Render Code -----
-        if (offX < -width) return;
-        if (offY < -height) return;
-        if (offX >= pixelWidth) return;
-        if (offY >= pixelHeight) return;
+        if (x0 >= x1 || y0 >= y1 || region.getCoverage() == Coverage.TRANSPARENT) return;
+
+        Image image = region.getImage();
+        int[] src = image.getPixels();
+        int stride = image.getWidth();
+        boolean opaque = region.getCoverage() == Coverage.OPAQUE;
+        boolean premultiplied = image.isPremultiplied();
+        int[] row = getRowBuffer();
+
+        prepareDepth();
+        for (int y = y0; y < y1; y++) {
+            if (!transform.row(y - centerY, x0 - centerX, x1 - centerX)) continue;
+
+            int length = transform.getSpanX1() - transform.getSpanX0();
+            int dstIndex = centerX + transform.getSpanX0() + y * pixelWidth;
+            transform.sample(src, stride, region.getX(), region.getY(), row, 0);
+            if (opaque) {
+                copyRow(row, 0, dstIndex, length);
+            } else {
+                blitRow(row, 0, dstIndex, length, premultiplied);
+            }
+        }
+    }
+
+    // Scratch row for pixels gathered out of source order, one screen wide.
+    private int[] getRowBuffer() {
+        if (rowBuffer.length < pixelWidth) {
+            rowBuffer = new int[pixelWidth];
+        }
+        return rowBuffer;
+    }
+
+    // Rows known to be fully opaque only need the depth test split into runs.
+    private void copyRow(int[] src, int srcIndex, int dstIndex, int length) {
+        int end = dstIndex + length;
+        int offset = srcIndex - dstIndex;
+        int i = dstIndex;
+
+        while (i < end) {
+            int runStart = i;
+            i = depthRun(i, end);
+            if (i == runStart) {
+                pixelsRejected++;
+                i++;
+                continue;
+            }
 
-        int newX = 0, newY = 0, newWidth = width, newHeight = height;
+            System.arraycopy(src, runStart + offset, pixels, runStart, i - runStart);
+            writeDepth(runStart, i);
+            pixelsWritten += i - runStart;
+        }
+    }
 
+    // Walks the encoded runs of each visible row, transparent pixels were
+    // dropped at compile time so there is nothing to skip.
+    private void blitSprite(CompiledSprite sprite, int offX, int offY) {
 //      ----- Clipping Code -----
-        if (offX < 0) { newX -= offX; }
-        if (offY < 0) { newY -= offY; }
-        if (newWidth + offX >= pixelWidth) { newWidth -= newWidth + offX - pixelWidth; }
-        if (newHeight + offY >= pixelHeight) { newHeight -= newHeight + offY - pixelHeight; }
+        int y0 = Math.max(offY, clipY0);
+        int y1 = Math.min(offY + sprite.getHeight(), clipY1);
+        int left = clipX0 - offX;
+        int right = clipX1 - offX;
+
+//      ----- Don't Render Code -----
+        if (y0 >= y1 || left >= sprite.getWidth() || right <= 0) return;
+
+        int[] rowStarts = sprite.getRowStarts();
+        int[] runs = sprite.getRuns();
+        int[] data = sprite.getData();
+        boolean premultiplied = sprite.isPremultiplied();
 
+        prepareDepth();
+        for (int y = y0; y < y1; y++) {
+            int row = offX + y * pixelWidth;
+            int last = rowStarts[y - offY + 1] * CompiledSprite.RUN;
+            for (int run = rowStarts[y - offY] * CompiledSprite.RUN; run < last; run += CompiledSprite.RUN) {
+                int x0 = runs[run];
+                int x1 = x0 + runs[run + 1];
+                if (x0 >= right) break;
+                if (x1 <= left) continue;
 
-        for (int x = newX +1; x < newWidth; x++) {
-            for (int y = newY +1; y < newHeight; y++) {
-                setPixel(x + offX, y + offY, fill);
+                int skip = Math.max(left - x0, 0);
+                x1 = Math.min(x1, right);
+                int srcIndex = runs[run + 3] + skip;
+                if (runs[run + 2] == CompiledSprite.OPAQUE) {
+                    copyRow(data, srcIndex, row + x0 + skip, x1 - x0 - skip);
+                } else {
+                    blendRow(data, srcIndex, row + x0 + skip, x1 - x0 - skip, premultiplied);
+                }
             }
         }
+    }
+
+    // Rows with no transparent pixels, blended a depth run at a time.
+    private void blendRow(int[] src, int srcIndex, int dstIndex, int length, boolean premultiplied) {
+        int end = dstIndex + length;
+        int offset = srcIndex - dstIndex;
+        int i = dstIndex;
 
-        for (int x = newX; x <= newWidth; x++) {
-            setPixel(x + offX, offY, stroke);
-            setPixel(x + offX, offY + height, stroke);
+        while (i < end) {
+            int runStart = i;
+            i = depthRun(i, end);
+            if (i == runStart) {
+                pixelsRejected++;
+                i++;
+                continue;
+            }
+
+            kernels.blend(pixels, runStart, src, runStart + offset, i - runStart, premultiplied);
+            writeDepth(runStart, i);
+            pixelsWritten += i - runStart;
         }
-        for (int y = newY; y <= newHeight; y++) {
-            setPixel(offX, y + offY, stroke);
-            setPixel(offX + width, y + offY, stroke);
+    }
+
+    // Copies runs of opaque pixels that pass the depth test in one go, skips
+    // transparent pixels and only blends where alpha is partial.
+    private void blitRow(int[] src, int srcIndex, int dstIndex, int length, boolean premultiplied) {
+        int srcEnd = srcIndex + length;
+        int offset = dstIndex - srcIndex;
+        int i = srcIndex;
+
+        while (i < srcEnd) {
+            int alpha = src[i] >>> 24;
+
+            if (alpha == 0) {
+                i++;
+            } else if (alpha == 255) {
+                int runStart = i;
+                while (i < srcEnd && (src[i] >>> 24) == 255 && depthPasses(i + offset)) {
+                    i++;
+                }
+                pixelsWritten += i - runStart;
+                if (i - runStart >= SHORT_RUN) {
+                    System.arraycopy(src, runStart, pixels, runStart + offset, i - runStart);
+                    writeDepth(runStart + offset, i + offset);
+                } else if (i > runStart) {
+                    for (int j = runStart; j < i; j++) {
+                        pixels[j + offset] = src[j];
+                    }
+                    writeDepth(runStart + offset, i + offset);
+                } else {
+                    pixelsRejected++;
+                    i++;
+                }
+            } else {
+                int runStart = i;
+                while (i < srcEnd && isPartial(src[i]) && depthPasses(i + offset)) {
+                    i++;
+                }
+                if (i > runStart) {
+                    kernels.blend(pixels, runStart + offset, src, runStart, i - runStart, premultiplied);
+                    writeDepth(runStart + offset, i + offset);
+                    pixelsWritten += i - runStart;
+                } else {
+                    pixelsRejected++;
+                    i++;
+                }
+            }
         }
+    }
 
+    private static boolean isPartial(int value) {
+        int alpha = value >>> 24;
+        return alpha != 0 && alpha != 255;
     }
 
-    public void drawRect(int offX, int offY, int width, int height, int fill) {
+    // Bounds are exclusive and clipped to the clip rectangle.
+    private void fillRect(int x0, int y0, int x1, int y1, int color) {
+        if ((color >>> 24) == 0) return;
+
+//      ----- Clipping Code -----
+        x0 = Math.max(x0, clipX0);
+        y0 = Math.max(y0, clipY0);
+        x1 = Math.min(x1, clipX1);
+        y1 = Math.min(y1, clipY1);
 
 //      ----- Don't Render Code -----
-        if (offX < -width) return;
-        if (offY < -height) return;
-        if (offX >= pixelWidth) return;
-        if (offY >= pixelHeight) return;
+        if (x0 >= x1 || y0 >= y1) return;
 
-        int newX = 0, newY = 0, newWidth = width, newHeight = height;
+        prepareDepth();
+        for (int y = y0; y < y1; y++) {
+            fillRow(x0 + y * pixelWidth, x1 - x0, color);
+        }
+    }
 
-//      ----- Clipping Code -----
-        if (offX < 0) { newX -= offX; }
-        if (offY < 0) { newY -= offY; }
-        if (newWidth + offX >= pixelWidth) { newWidth -= newWidth + offX - pixelWidth; }
-        if (newHeight + offY >= pixelHeight) { newHeight -= newHeight + offY - pixelHeight; }
+    // Fills (y, x0, x1) spans that are already inside the clip rows.
+    private void fillSpans(int[] spans, int count, int color) {
+        prepareDepth();
+        for (int i = 0; i < count * 3; i += 3) {
+            int x0 = Math.max(spans[i + 1], clipX0);
+            int x1 = Math.min(spans[i + 2], clipX1);
+            if (x0 < x1) {
+                fillRow(x0 + spans[i] * pixelWidth, x1 - x0, color);
+            }
+        }
+    }
+
+    private void fillRow(int dstIndex, int length, int color) {
+        int end = dstIndex + length;
+        boolean opaque = (color >>> 24) == 255;
+        int i = dstIndex;
+
+        while (i < end) {
+            int runStart = i;
+            i = depthRun(i, end);
+            if (i == runStart) {
+                pixelsRejected++;
+                i++;
+                continue;
+            }
+            pixelsWritten += i - runStart;
 
-        for (int x = newX; x <= newWidth; x++) {
-            for (int y = newY; y <= newHeight; y++) {
-                setPixel(x + offX, y + offY, fill);
+            if (opaque) {
+                kernels.fill(pixels, runStart, i, color);
+            } else {
+                kernels.blendColor(pixels, runStart, i, color);
             }
+            writeDepth(runStart, i);
         }
     }
 
-    public void drawLine(int x1, int y1, int x2, int y2, int thickness, int color) {
+//  ----- Depth Testing -----
+
+    // Generation stamps pack the frame generation in the high word and the
+    // depth, biased so it orders as unsigned, in the low word. A stamp from an
+    // earlier generation reads as depth 0, just like a wiped buffer.
+    private void prepareDepth() {
+        if (depthMode != DepthMode.GENERATION) return;
+
+        long generation = (long) target.getGeneration() << 32;
+        depthStamps = target.getDepthStamps();
+        depthLimit = generation | ((zDepth ^ 0x80000000) & 0xffffffffL);
+        depthFloor = zDepth >= 0 ? 0 : generation;
+    }
+
+    private boolean depthPasses(int index) {
+        switch (depthMode) {
+            case BUFFER:
+                return zBuffer[index] <= zDepth;
+            case GENERATION:
+                long stamp = depthStamps[index];
+                return stamp >= depthFloor && stamp <= depthLimit;
+            default:
+                return true;
+        }
+    }
+
+    // Returns the end of the run of pixels from index that pass the depth test.
+    private int depthRun(int index, int end) {
+        switch (depthMode) {
+            case BUFFER:
+                return kernels.depthRun(zBuffer, index, end, zDepth);
+            case GENERATION:
+                while (index < end && depthStamps[index] >= depthFloor && depthStamps[index] <= depthLimit) {
+                    index++;
+                }
+                return index;
+            default:
+                return end;
+        }
+    }
+
+    private void writeDepth(int from, int to) {
+        switch (depthMode) {
+            case BUFFER:
+                if (to - from == 1) {
+                    zBuffer[from] = zDepth;
+                } else {
+                    kernels.fill(zBuffer, from, to, zDepth);
+                }
+                break;
+            case GENERATION:
+                if (to - from == 1) {
+                    depthStamps[from] = depthLimit;
+                } else {
+                    Arrays.fill(depthStamps, from, to, depthLimit);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void clearDepth(int from, int to) {
+        switch (depthMode) {
+            case BUFFER:
+                kernels.fill(zBuffer, from, to, 0);
+                break;
+            case GENERATION:
+                Arrays.fill(target.getDepthStamps(), from, to, 0);
+                break;
+            default:
+                break;
+        }
+    }
+
+
+    public void setClip(int x, int y, int width, int height) {
+        clipX0 = Math.max(x, 0);
+        clipY0 = Math.max(y, 0);
+        clipX1 = Math.min(x + width, pixelWidth);
+        clipY1 = Math.min(y + height, pixelHeight);
+    }
+
+    public void resetClip() {
+        setClip(0, 0, pixelWidth, pixelHeight);
+    }
+
+    public RenderTarget getTarget() {
+        return target;
+    }
+
+    public Font getFont() {
+        return font;
+    }
+
+    // Recorded text does not carry its font, so a change redraws everything.
+    public void setFont(Font font) {
+        if (font == this.font) return;
+
+        this.font = font;
+        previousValid = false;
+    }
+
+    public TextCache getTextCache() {
+        return textCache;
+    }
+
+    public boolean isTextCaching() {
+        return textCaching;
+    }
+
+    // With caching off text is drawn glyph by glyph straight from the spans.
+    public void setTextCaching(boolean textCaching) {
+        this.textCaching = textCaching;
+    }
+
+    public TransformCache getTransformCache() {
+        return transformCache;
+    }
+
+    public boolean isTransformCaching() {
+        return transformCaching;
+    }
+
+    // Off by default, rotated images are then rasterized on every draw.
+    public void setTransformCaching(boolean transformCaching) {
+        this.transformCaching = transformCaching;
+    }
+
+    public PixelKernels getKernels() {
+        return kernels;
+    }
+
+    public void setKernels(PixelKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    public DepthMode getDepthMode() {
+        return depthMode;
+    }
+
+    // Switching modes resets the depth state the new mode reads. While
+    // recording the target may belong to a render thread, so the reset waits
+    // until this engine next rasterizes and the frame is redrawn in full.
+    public void setDepthMode(DepthMode depthMode) {
+        if (depthMode == this.depthMode) return;
+
+        this.depthMode = depthMode;
+        depthResetPending = true;
+        if (recording) {
+            previousValid = false;
+        } else {
+            resetDepth();
+        }
+    }
+
+    private void resetDepth() {
+        if (!depthResetPending) return;
+
+        depthResetPending = false;
+        clearDepth(0, zBuffer.length);
+        if (depthMode == DepthMode.GENERATION) {
+            target.nextGeneration();
+        }
+    }
+
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+        if (!recording) {
+            resetDepth();
+        }
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
 
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
 
     public int getzDepth() {
@@ -0,0 +1,76 @@
+package com.pixelengine.engine;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+public class RenderTarget {
+    private int width, height;
+    private int[] pixels;
+    private int[] zBuffer;
+    private long[] depthStamps;
+    private int generation = 1;
+    private BufferedImage image;
+
+    public RenderTarget(int width, int height) {
+        this(new int[width * height], width, height);
+    }
+
+    public RenderTarget(int[] pixels, int width, int height) {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("Pixel buffer does not match " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.zBuffer = new int[width * height];
+
+//      ----- Wrap the framebuffer without copying so a presenter can read it directly -----
+        DataBufferInt buffer = new DataBufferInt(pixels, width * height);
+        WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width, new int[] {0xff0000, 0xff00, 0xff}, null);
+        image = new BufferedImage(new DirectColorModel(24, 0xff0000, 0xff00, 0xff), raster, false, null);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int[] getzBuffer() {
+        return zBuffer;
+    }
+
+    // Generation stamped depth, allocated the first time it is asked for.
+    public long[] getDepthStamps() {
+        if (depthStamps == null) {
+            depthStamps = new long[width * height];
+        }
+        return depthStamps;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public void nextGeneration() {
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(getDepthStamps(), 0);
+            generation = 1;
+        }
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+}
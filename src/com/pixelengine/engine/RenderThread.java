@@ -0,0 +1,103 @@
+package com.pixelengine.engine;
+
+import com.pixelengine.engine.capture.FrameCapture;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Rasterizes and presents frame N-1 while the update thread records frame N.
+// Two draw lists travel between the threads: one is being recorded, the
+// other is being rendered, and they trade places every frame.
+public class RenderThread implements Runnable {
+    private RenderEngine rasterizer;
+    private Window window;
+    private volatile FrameCapture capture;
+
+    private BlockingQueue<DrawList> submitted = new ArrayBlockingQueue<DrawList>(1);
+    private BlockingQueue<DrawList> free = new ArrayBlockingQueue<DrawList>(1);
+
+    private Thread thread;
+    private volatile boolean running = false;
+
+    public RenderThread(RenderTarget target, Window window) {
+        this.rasterizer = new RenderEngine(target);
+        this.window = window;
+        free.add(new DrawList());
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this, "PixelEngine-Render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Called on the update thread. Blocks only while the render thread is
+    // still busy with the frame before the one being handed over.
+    public void submit(RenderEngine recorder) {
+        try {
+            DrawList next = free.take();
+            rasterizer.setParallel(recorder.isParallel());
+            rasterizer.setPool(recorder.getPool());
+            rasterizer.setProfiler(recorder.getProfiler());
+            rasterizer.setDepthMode(recorder.getDepthMode());
+            rasterizer.setKernels(recorder.getKernels());
+            rasterizer.setFont(recorder.getFont());
+            rasterizer.setTextCaching(recorder.isTextCaching());
+            rasterizer.setTransformCaching(recorder.isTransformCaching());
+            if (rasterizer.isDamageTracking() != recorder.isDamageTracking()) {
+                rasterizer.setDamageTracking(recorder.isDamageTracking());
+            }
+            submitted.put(recorder.swapDrawList(next));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        if (thread == null) return;
+
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            DrawList list;
+            try {
+                list = submitted.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            rasterizer.render(list);
+            FrameCapture capture = this.capture;
+            if (capture != null) {
+                capture.capture(rasterizer.getTarget().getPixels());
+            }
+            if (window != null) {
+                long start = System.nanoTime();
+                window.update(rasterizer.getDamage());
+                if (rasterizer.getProfiler() != null) {
+                    rasterizer.getProfiler().record(FrameProfiler.PRESENT, System.nanoTime() - start);
+                }
+            }
+            free.add(list);
+        }
+    }
+
+    public RenderEngine getRasterizer() {
+        return rasterizer;
+    }
+
+    public void setCapture(FrameCapture capture) {
+        this.capture = capture;
+    }
+}
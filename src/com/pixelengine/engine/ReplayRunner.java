@@ -0,0 +1,213 @@
+package com.pixelengine.engine;
+
+import com.pixelengine.game.Main;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+// Plays an InputRecorder log through the game headless and as fast as the
+// machine allows, then reports frame time statistics and a hash of the
+// framebuffer after every tick. Hashes can be saved and later compared,
+// which turns a recorded session into a visual regression check.
+//
+//   ReplayRunner <input log> [--ticks N] [--warmup N] [--hashes file] [--expect file]
+public class ReplayRunner {
+    private static final String USAGE = "Usage: ReplayRunner <input log> [--ticks N] [--warmup N] [--hashes file] [--expect file]";
+
+    // Over a week at 60 ticks a second, and a gigabyte of times and hashes
+    public static final int MAX_TICKS = 1 << 26;
+
+    private InputLog log;
+    private int ticks;
+
+    private long[] frameTimes;
+    private long[] hashes;
+
+    public ReplayRunner(InputLog log, int ticks) {
+        if (ticks <= 0 || ticks > MAX_TICKS) {
+            throw new IllegalArgumentException("Cannot replay " + ticks + " ticks");
+        }
+        this.log = log;
+        this.ticks = ticks;
+        frameTimes = new long[ticks];
+        hashes = new long[ticks];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            usage(null);
+        }
+
+        InputLog log;
+        try (InputStream in = new FileInputStream(args[0])) {
+            log = new InputLog(in);
+        }
+        int ticks = 0;
+        int warmup = 0;
+        String hashFile = null;
+        String expectFile = null;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--ticks":
+                    ticks = parseTicks(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--hashes":
+                    hashFile = args[i + 1];
+                    break;
+                case "--expect":
+                    expectFile = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+        }
+
+        // Without --ticks the whole log is replayed
+        if (ticks == 0) {
+            long logTicks = log.getLastTick() + 1;
+            if (logTicks > MAX_TICKS) {
+                usage("The log runs for " + logTicks + " ticks, pass --ticks to replay at most " + MAX_TICKS);
+            }
+            ticks = (int) logTicks;
+        }
+
+        ReplayRunner runner = new ReplayRunner(log, ticks);
+        for (int i = 0; i < warmup; i++) {
+            runner.run();
+        }
+        runner.run();
+        runner.report(System.out);
+
+        if (hashFile != null) {
+            try (PrintStream out = new PrintStream(hashFile, StandardCharsets.UTF_8)) {
+                runner.writeHashes(out);
+            }
+        }
+        if (expectFile != null && runner.compare(Files.readAllLines(Paths.get(expectFile)), System.out) > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int parseTicks(String value) {
+        int ticks = 0;
+        try {
+            ticks = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            usage("--ticks must be a whole number, got " + value);
+        }
+        if (ticks <= 0 || ticks > MAX_TICKS) {
+            usage("--ticks must be between 1 and " + MAX_TICKS + ", got " + value);
+        }
+        return ticks;
+    }
+
+    private static void usage(String error) {
+        if (error != null) {
+            System.err.println(error);
+        }
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    // Runs the whole log once against a fresh game.
+    public void run() {
+        Main mainProgram = new Main();
+        PixelEngine engine = new PixelEngine(mainProgram);
+        engine.setHeadless(true);
+        mainProgram.init(engine);
+        engine.setPipelined(false);
+
+        RenderTarget target = engine.getTarget();
+        if (target.getWidth() != log.getWidth() || target.getHeight() != log.getHeight()) {
+            System.err.println("Warning: log was recorded at " + log.getWidth() + "x" + log.getHeight()
+                    + ", replaying at " + target.getWidth() + "x" + target.getHeight());
+        }
+
+        log.rewind();
+        Input input = engine.getInput();
+        for (int tick = 0; tick < ticks; tick++) {
+            log.post(tick + 1, input);
+
+            long start = System.nanoTime();
+            engine.tick();
+            frameTimes[tick] = System.nanoTime() - start;
+            hashes[tick] = hash(target.getPixels());
+        }
+        engine.stop();
+    }
+
+    // 64 bit FNV-1a over the pixels.
+    public static long hash(int[] pixels) {
+        long hash = 0xcbf29ce484222325L;
+        for (int pixel : pixels) {
+            hash = (hash ^ pixel) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public void report(PrintStream out) {
+        long[] sorted = Arrays.copyOf(frameTimes, frameTimes.length);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long time : sorted) {
+            total += time;
+        }
+
+        out.printf("%d ticks, %d input events, %.1f ms total%n", ticks, log.getEventCount(), total / 1.0e6);
+        out.printf("frame  mean %.3f ms  p50 %.3f ms  p95 %.3f ms  p99 %.3f ms  max %.3f ms%n",
+                total / 1.0e6 / ticks, percentile(sorted, 0.5), percentile(sorted, 0.95),
+                percentile(sorted, 0.99), sorted[sorted.length - 1] / 1.0e6);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.min(Math.ceil(fraction * sorted.length) - 1, sorted.length - 1);
+        return sorted[Math.max(index, 0)] / 1.0e6;
+    }
+
+    public void writeHashes(PrintStream out) {
+        for (int tick = 0; tick < ticks; tick++) {
+            out.printf("%d %016x%n", tick + 1, hashes[tick]);
+        }
+    }
+
+    // Compares against lines written by writeHashes and returns how many
+    // ticks differ, ticks missing on either side count as differences.
+    public int compare(List<String> expected, PrintStream out) {
+        int mismatches = Math.abs(expected.size() - ticks);
+        int first = -1;
+        for (int tick = 0; tick < Math.min(expected.size(), ticks); tick++) {
+            String actual = String.format("%d %016x", tick + 1, hashes[tick]);
+            if (!actual.equals(expected.get(tick).trim())) {
+                if (first < 0) {
+                    first = tick;
+                    out.println("First mismatch at tick " + (tick + 1) + ": expected " + expected.get(tick).trim() + ", got " + actual);
+                }
+                mismatches++;
+            }
+        }
+        if (first < 0 && expected.size() != ticks) {
+            out.println("First mismatch at tick " + (Math.min(expected.size(), ticks) + 1) + ": expected "
+                    + expected.size() + " ticks, got " + ticks);
+        }
+        out.println(mismatches == 0 ? "All frame hashes match" : mismatches + " frame hashes differ");
+        return mismatches;
+    }
+
+    public long[] getFrameTimes() {
+        return frameTimes;
+    }
+
+    public long[] getHashes() {
+        return hashes;
+    }
+}
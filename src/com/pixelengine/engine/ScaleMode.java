@@ -0,0 +1,12 @@
+package com.pixelengine.engine;
+
+public enum ScaleMode {
+    // The largest whole number scale that fits, the rest of the device is
+    // letterboxed. Falls back to FIT when the device is smaller than the frame.
+    INTEGER,
+    // As large as fits while keeping the aspect ratio, letterboxed, with
+    // nearest neighbour rows and columns repeated unevenly.
+    FIT,
+    // Fills the whole device, pixels may stop being square.
+    STRETCH
+}
@@ -11,19 +11,28 @@ public class Window {
     private float densityX, densityY;
 
     private JFrame frame;
-    private BufferedImage image;
+    private RenderTarget target;
     private Canvas canvas;
     private BufferStrategy bufferStrategy;
     private Graphics graphics;
+    private Presenter presenter;
+
+    private int[] lastDamage = new int[0];
+    private int lastDamageCount = 0;
+    private boolean lastDamageFull = true;
+    private boolean preservesContents;
 
     public Window(int width, int height, float densityX, float densityY, String title) {
-        this.width = width;
-        this.height = height;
+        this(new RenderTarget(width, height), densityX, densityY, title);
+    }
+
+    public Window(RenderTarget target, float densityX, float densityY, String title) {
+        this.target = target;
+        this.width = target.getWidth();
+        this.height = target.getHeight();
         this.densityX = densityX;
         this.densityY = densityY;
 
-        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
         canvas = new Canvas();
         Dimension dimension = new Dimension((int)(width * densityX), (int)(height * densityY));
         canvas.setPreferredSize(dimension);
@@ -42,15 +51,138 @@ public class Window {
         canvas.createBufferStrategy(2);
         bufferStrategy = canvas.getBufferStrategy();
         graphics = bufferStrategy.getDrawGraphics();
+
+        // Partial presents need the back buffer to still hold an earlier frame
+        // after a show: blits copy and so do flips that keep the prior frame
+        BufferCapabilities capabilities = bufferStrategy.getCapabilities();
+        BufferCapabilities.FlipContents flipContents = capabilities.getFlipContents();
+        preservesContents = !capabilities.isPageFlipping()
+                || flipContents == BufferCapabilities.FlipContents.COPIED
+                || flipContents == BufferCapabilities.FlipContents.PRIOR;
+
+        // Whole densities keep square pixels, anything else stretches as before
+        presenter = new Presenter(target, canvas.getWidth(), canvas.getHeight());
+        boolean whole = densityX == densityY && densityX == (int) densityX;
+        presenter.setScaleMode(whole ? ScaleMode.INTEGER : ScaleMode.STRETCH);
     }
 
     public void update() {
-        graphics.drawImage(image, 0, 0, canvas.getWidth(), canvas.getHeight(), null);
-        bufferStrategy.show();
+        show(true, null);
+        lastDamageFull = true;
+    }
+
+    // The presenter scales into its own device sized buffer, so the copy to
+    // the back buffer is never scaled by Java2D.
+    private void presentFull() {
+        if (presenter.getDeviceWidth() != canvas.getWidth() || presenter.getDeviceHeight() != canvas.getHeight()) {
+            presenter.resize(canvas.getWidth(), canvas.getHeight());
+        }
+        presenter.present();
+        graphics.drawImage(presenter.getImage(), 0, 0, null);
+    }
+
+    // Presents only what changed. The back buffer still holds the frame before
+    // last, so this frame's damage is presented together with the last one's,
+    // and nothing is presented when neither frame changed anything. Buffers
+    // that don't keep their contents, or that the system dropped or restored,
+    // are presented in full.
+    public void update(DamageTracker damage) {
+        boolean full = damage.isFull() || lastDamageFull || !preservesContents
+                || bufferStrategy.contentsLost() || bufferStrategy.contentsRestored();
+        boolean intact = true;
+        if (full || damage.size() > 0 || lastDamageCount > 0) {
+            intact = show(full, damage);
+        }
+
+        lastDamageFull = damage.isFull() || !intact;
+        lastDamageCount = damage.size();
+        if (lastDamage.length < lastDamageCount * 4) {
+            lastDamage = new int[damage.getRects().length];
+        }
+        System.arraycopy(damage.getRects(), 0, lastDamage, 0, lastDamageCount * 4);
+    }
+
+    // Repeats the present until it lands in a buffer the system kept, and
+    // from then on in full. Returns false when contents were lost or restored.
+    private boolean show(boolean full, DamageTracker damage) {
+        boolean intact = true;
+        do {
+            boolean restored;
+            do {
+                if (full) {
+                    presentFull();
+                } else {
+                    presentRects(lastDamage, lastDamageCount);
+                    presentRects(damage.getRects(), damage.size());
+                }
+                restored = bufferStrategy.contentsRestored();
+                if (restored) {
+                    intact = false;
+                    full = true;
+                    resetGraphics();
+                }
+            } while (restored);
+
+            bufferStrategy.show();
+            if (bufferStrategy.contentsLost()) {
+                intact = false;
+                full = true;
+                resetGraphics();
+            } else {
+                return intact;
+            }
+        } while (true);
+    }
+
+    // A lost or restored buffer may be a new one, draw through fresh graphics.
+    private void resetGraphics() {
+        graphics.dispose();
+        graphics = bufferStrategy.getDrawGraphics();
+    }
+
+    private void presentRects(int[] rects, int count) {
+        for (int i = 0; i < count; i++) {
+            int base = i * 4;
+            int sx0 = rects[base], sy0 = rects[base + 1], sx1 = rects[base + 2], sy1 = rects[base + 3];
+            presenter.present(sx0, sy0, sx1, sy1);
+
+            int dx0 = presenter.deviceX(sx0), dy0 = presenter.deviceY(sy0);
+            int dx1 = presenter.deviceX(sx1), dy1 = presenter.deviceY(sy1);
+            graphics.drawImage(presenter.getImage(), dx0, dy0, dx1, dy1, dx0, dy0, dx1, dy1, null);
+        }
+    }
+
+    // Canvas coordinates to framebuffer coordinates, past the edges when the
+    // point is in the letterbox.
+    public int toTargetX(int x) {
+        return presenter.sourceX(x);
+    }
+
+    public int toTargetY(int y) {
+        return presenter.sourceY(y);
+    }
+
+    public Presenter getPresenter() {
+        return presenter;
+    }
+
+    public ScaleMode getScaleMode() {
+        return presenter.getScaleMode();
+    }
+
+    // Changing the layout repaints the letterbox, so the next frame is
+    // presented in full.
+    public void setScaleMode(ScaleMode scaleMode) {
+        presenter.setScaleMode(scaleMode);
+        lastDamageFull = true;
     }
 
     public BufferedImage getImage() {
-        return image;
+        return target.getImage();
+    }
+
+    public RenderTarget getTarget() {
+        return target;
     }
 
     public Canvas getCanvas() {
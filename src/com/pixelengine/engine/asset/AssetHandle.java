@@ -0,0 +1,56 @@
+package com.pixelengine.engine.asset;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// One reference to an asset held by an AssetManager. The asset stays loaded
+// until every handle to it has been released, after which it may be evicted
+// once the manager runs over its memory budget.
+public class AssetHandle<T> {
+    private final AssetManager manager;
+    private final AssetManager.Entry entry;
+    private final CompletableFuture<T> future;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    AssetHandle(AssetManager manager, AssetManager.Entry entry, CompletableFuture<T> future) {
+        this.manager = manager;
+        this.entry = entry;
+        this.future = future;
+    }
+
+    // Blocks until the asset has loaded. Throws if loading failed.
+    public T get() {
+        if (released.get()) {
+            throw new IllegalStateException("Asset " + entry.getKey() + " was already released");
+        }
+        return future.join();
+    }
+
+    // The asset if it has finished loading, otherwise the fallback.
+    public T getNow(T fallback) {
+        return future.getNow(fallback);
+    }
+
+    public boolean isLoaded() {
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    public boolean isFailed() {
+        return future.isCompletedExceptionally();
+    }
+
+    public CompletableFuture<T> getFuture() {
+        return future;
+    }
+
+    public String getKey() {
+        return entry.getKey();
+    }
+
+    // Safe to call more than once, only the first call drops the reference.
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            manager.release(entry);
+        }
+    }
+}
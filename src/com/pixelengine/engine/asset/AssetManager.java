@@ -0,0 +1,213 @@
+package com.pixelengine.engine.asset;
+
+import com.pixelengine.engine.gfx.Font;
+import com.pixelengine.engine.gfx.Image;
+import com.pixelengine.engine.gfx.ImageTile;
+import com.pixelengine.engine.sound.SoundClip;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Loads assets on a pool of worker threads so decoding runs in parallel and
+// off the game loop. Every asset is loaded once per key no matter how many
+// times it is asked for, handles count the references to it, and assets
+// nobody references any more are kept around until the memory budget runs
+// out, least recently released first.
+public class AssetManager {
+    private final ExecutorService workers;
+    private volatile AssetPack pack;
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private final LinkedHashMap<String, Entry> unused = new LinkedHashMap<String, Entry>();
+    private long memoryUsed = 0;
+    private long memoryBudget = 256L << 20;
+
+    public AssetManager() {
+        this(Math.max(Runtime.getRuntime().availableProcessors(), 2));
+    }
+
+    public AssetManager(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "PixelEngine-Asset-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+//  ----- Loaders -----
+
+    public AssetHandle<Image> loadImage(String path) {
+        return load("image:" + path, () -> {
+            AssetPack pack = this.pack;
+            return pack != null && pack.contains(path) ? pack.getImage(path) : new Image(path);
+        }, image -> bytes(image));
+    }
+
+    public AssetHandle<ImageTile> loadImageTile(String path, int tileWidth, int tileHeight) {
+        return load("tiles:" + tileWidth + "x" + tileHeight + ":" + path, () -> {
+            AssetPack pack = this.pack;
+            return pack != null && pack.contains(path) ? pack.getImageTile(path, tileWidth, tileHeight) : new ImageTile(path, tileWidth, tileHeight);
+        }, image -> bytes(image));
+    }
+
+    public AssetHandle<Font> loadFont(String path) {
+        return load("font:" + path, () -> {
+            AssetPack pack = this.pack;
+            return pack != null && pack.contains(path) ? pack.getFont(path) : new Font(path);
+        }, font -> bytes(font.getFontImage()));
+    }
+
+    public AssetHandle<SoundClip> loadSound(String path) {
+        return load("sound:" + path, () -> {
+            AssetPack pack = this.pack;
+            return pack != null && pack.contains(path) ? pack.getSound(path) : new SoundClip(path);
+        }, SoundClip::getSize);
+    }
+
+    // Keys must be unique per asset: two loads with the same key share the
+    // first load's result. size reports the asset's memory in bytes.
+    @SuppressWarnings("unchecked")
+    public synchronized <T> AssetHandle<T> load(String key, Supplier<T> loader, ToLongFunction<T> size) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key);
+            entries.put(key, entry);
+            Entry created = entry;
+            entry.future = CompletableFuture.supplyAsync(loader, workers).whenComplete((asset, error) -> loaded(created, asset, error, size));
+        } else if (entry.references == 0) {
+            unused.remove(key);
+        }
+        entry.references++;
+        return new AssetHandle<T>(this, entry, (CompletableFuture<T>) entry.future);
+    }
+
+    private synchronized <T> void loaded(Entry entry, T asset, Throwable error, ToLongFunction<T> size) {
+        if (entries.get(entry.key) != entry) return;
+
+        if (error != null) {
+            // Forget failed loads so the next request tries again
+            entries.remove(entry.key);
+            unused.remove(entry.key);
+            return;
+        }
+        entry.asset = asset;
+        entry.size = size.applyAsLong(asset);
+        memoryUsed += entry.size;
+        evict();
+    }
+
+    synchronized void release(Entry entry) {
+        if (entries.get(entry.key) != entry || entry.references == 0) return;
+
+        entry.references--;
+        if (entry.references == 0) {
+            unused.put(entry.key, entry);
+            evict();
+        }
+    }
+
+//  ----- Eviction -----
+
+    private void evict() {
+        Iterator<Entry> eldest = unused.values().iterator();
+        while (memoryUsed > memoryBudget && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            if (!entry.future.isDone()) continue;
+
+            eldest.remove();
+            drop(entry);
+        }
+    }
+
+    private void drop(Entry entry) {
+        entries.remove(entry.key);
+        memoryUsed -= entry.size;
+        if (entry.asset instanceof SoundClip) {
+            ((SoundClip) entry.asset).close();
+        }
+    }
+
+    // Drops every asset nobody holds a handle to.
+    public synchronized void evictUnused() {
+        Iterator<Entry> eldest = unused.values().iterator();
+        while (eldest.hasNext()) {
+            Entry entry = eldest.next();
+            if (!entry.future.isDone()) continue;
+
+            eldest.remove();
+            drop(entry);
+        }
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static long bytes(Image image) {
+        return (long) image.getPixels().length * Integer.BYTES;
+    }
+
+//  ----- Getters & Setters -----
+
+    public AssetPack getPack() {
+        return pack;
+    }
+
+    // Assets found in the pack are read from it, anything else still loads
+    // from the classpath.
+    public void setPack(AssetPack pack) {
+        this.pack = pack;
+    }
+
+    public synchronized boolean isLoaded(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.asset != null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    // Only assets without handles count against evictions, referenced assets
+    // stay loaded even when they alone are over the budget.
+    public synchronized void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative");
+        }
+        this.memoryBudget = memoryBudget;
+        evict();
+    }
+
+    static class Entry {
+        private final String key;
+        private CompletableFuture<?> future;
+        private Object asset;
+        private long size;
+        private int references = 0;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        String getKey() {
+            return key;
+        }
+    }
+}
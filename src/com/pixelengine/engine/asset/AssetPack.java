@@ -0,0 +1,211 @@
+package com.pixelengine.engine.asset;
+
+import com.pixelengine.engine.gfx.Font;
+import com.pixelengine.engine.gfx.Image;
+import com.pixelengine.engine.gfx.ImageTile;
+import com.pixelengine.engine.sound.SoundClip;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// A pack written by AssetPacker, memory mapped read only. Images come out
+// as raw ARGB and sounds as decoded PCM, so nothing is decoded at runtime,
+// and every process that maps the same pack shares its pages.
+//
+// Layout, little endian: a header of magic, version, entry count and a
+// reserved int, then
+// one index record per entry, then the entry data, each entry 8 byte
+// aligned. An index record is the path length and UTF-8 path, the type,
+// the data offset and length, and four type specific ints:
+//   IMAGE  width, height, tile width, tile height (0 without tiles)
+//   FONT   width, height, glyph count; the data is the pixels followed by
+//          a codepoint, offset and width per glyph
+//   SOUND  sample rate as float bits, channels, frames; 16 bit signed PCM
+//   RAW    unused
+public class AssetPack implements Closeable {
+    public static final int MAGIC = 0x4b505850;
+    public static final int VERSION = 1;
+
+    public static final int RAW = 0;
+    public static final int IMAGE = 1;
+    public static final int FONT = 2;
+    public static final int SOUND = 3;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    private AssetPack(FileChannel channel) throws IOException {
+        this.channel = channel;
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Asset packs are limited to 2 GiB, this one is " + channel.size() + " bytes");
+        }
+        data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        ByteBuffer index = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (index.getInt() != MAGIC) {
+            throw new IOException("Not an asset pack");
+        }
+        int version = index.getInt();
+        if (version != VERSION) {
+            throw new IOException("Asset pack version " + version + " is not supported, expected " + VERSION);
+        }
+
+        int count = index.getInt();
+        index.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] path = new byte[index.getShort() & 0xffff];
+            index.get(path);
+            Entry entry = new Entry(index.getInt(), index.getLong(), index.getLong(),
+                    index.getInt(), index.getInt(), index.getInt(), index.getInt());
+            if (entry.offset < 0 || entry.offset + entry.length > channel.size()) {
+                throw new IOException("Asset pack entry " + new String(path, StandardCharsets.UTF_8) + " is truncated");
+            }
+            entries.put(new String(path, StandardCharsets.UTF_8), entry);
+        }
+    }
+
+    public static AssetPack open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new AssetPack(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+//  ----- Readers -----
+
+    public Image getImage(String path) {
+        Entry entry = entry(path, IMAGE, FONT);
+        int[] pixels = new int[entry.a * entry.b];
+        slice(entry).asIntBuffer().get(pixels);
+        return new Image(pixels, entry.a, entry.b);
+    }
+
+    // Uses the tile size the pack was built with.
+    public ImageTile getImageTile(String path) {
+        Entry entry = entry(path, IMAGE);
+        if (entry.c == 0 || entry.d == 0) {
+            throw new IllegalArgumentException(path + " was packed without a tile size");
+        }
+        return getImageTile(path, entry.c, entry.d);
+    }
+
+    public ImageTile getImageTile(String path, int tileWidth, int tileHeight) {
+        Entry entry = entry(path, IMAGE);
+        int[] pixels = new int[entry.a * entry.b];
+        slice(entry).asIntBuffer().get(pixels);
+        return new ImageTile(pixels, entry.a, entry.b, tileWidth, tileHeight);
+    }
+
+    public Font getFont(String path) {
+        Entry entry = entry(path, FONT);
+        int glyphs = entry.c;
+        int[] pixels = new int[entry.a * entry.b];
+        int[] table = new int[glyphs * 3];
+        IntBuffer ints = slice(entry).asIntBuffer();
+        ints.get(pixels);
+        ints.get(table);
+
+        int[] codepoints = new int[glyphs];
+        int[] offsets = new int[glyphs];
+        int[] widths = new int[glyphs];
+        for (int i = 0; i < glyphs; i++) {
+            codepoints[i] = table[i * 3];
+            offsets[i] = table[i * 3 + 1];
+            widths[i] = table[i * 3 + 2];
+        }
+        return new Font(new Image(pixels, entry.a, entry.b), codepoints, offsets, widths);
+    }
+
+    public AudioFormat getSoundFormat(String path) {
+        Entry entry = entry(path, SOUND);
+        float sampleRate = Float.intBitsToFloat(entry.a);
+        return new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, sampleRate, 16, entry.b, entry.b * 2, sampleRate, false);
+    }
+
+    public SoundClip getSound(String path) {
+        Entry entry = entry(path, SOUND);
+        byte[] pcm = new byte[(int) entry.length];
+        slice(entry).get(pcm);
+        return new SoundClip(getSoundFormat(path), pcm);
+    }
+
+    // A read only view straight into the mapping, nothing is copied.
+    public ByteBuffer getData(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            throw new IllegalArgumentException(path + " is not in the asset pack");
+        }
+        return slice(entry).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private Entry entry(String path, int... types) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            throw new IllegalArgumentException(path + " is not in the asset pack");
+        }
+        for (int type : types) {
+            if (entry.type == type) {
+                return entry;
+            }
+        }
+        throw new IllegalArgumentException(path + " has the wrong type for this reader");
+    }
+
+    private ByteBuffer slice(Entry entry) {
+        return data.slice((int) entry.offset, (int) entry.length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+//  ----- Getters -----
+
+    public boolean contains(String path) {
+        return entries.containsKey(path);
+    }
+
+    // The entry's type, or -1 when the pack does not have it.
+    public int getType(String path) {
+        Entry entry = entries.get(path);
+        return entry == null ? -1 : entry.type;
+    }
+
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    private static class Entry {
+        private final int type;
+        private final long offset, length;
+        private final int a, b, c, d;
+
+        private Entry(int type, long offset, long length, int a, int b, int c, int d) {
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.pixelengine.engine.asset;
+
+import com.pixelengine.engine.gfx.Font;
+import com.pixelengine.engine.gfx.Glyph;
+import com.pixelengine.engine.gfx.Image;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Bakes a resource tree into an AssetPack offline. Images are decoded to
+// ARGB, images under fonts/ also get their glyph table, and sounds are
+// decoded to 16 bit PCM. Anything else is stored as is.
+//
+//   AssetPacker <res dir> <pack file> [--tiles /path.png=WxH]...
+public class AssetPacker {
+    private final Map<String, int[]> tileSizes = new HashMap<String, int[]>();
+    private final List<Packed> packed = new ArrayList<Packed>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: AssetPacker <res dir> <pack file> [--tiles /path.png=WxH]...");
+            System.exit(1);
+        }
+
+        AssetPacker packer = new AssetPacker();
+        for (int i = 2; i < args.length; i++) {
+            if (!args[i].equals("--tiles") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            String[] tiles = args[++i].split("[=x]");
+            if (tiles.length != 3) {
+                throw new IllegalArgumentException("Tile sizes look like /path.png=WxH, got " + args[i]);
+            }
+            packer.setTileSize(tiles[0], Integer.parseInt(tiles[1]), Integer.parseInt(tiles[2]));
+        }
+
+        long start = System.nanoTime();
+        packer.addTree(Paths.get(args[0]));
+        packer.write(Paths.get(args[1]));
+        System.out.printf("Packed %d assets into %s in %.1f ms%n", packer.packed.size(), args[1], (System.nanoTime() - start) / 1.0e6);
+    }
+
+    public void setTileSize(String path, int tileWidth, int tileHeight) {
+        if (tileWidth <= 0 || tileHeight <= 0) {
+            throw new IllegalArgumentException("Tile size " + tileWidth + "x" + tileHeight + " is empty");
+        }
+        tileSizes.put(path, new int[] {tileWidth, tileHeight});
+    }
+
+    // Adds every file under root, named by its path from root with a leading
+    // slash, the same names Image and SoundClip load from the classpath.
+    public void addTree(Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String name = "/" + root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+            add(name, file);
+        }
+    }
+
+    public void add(String name, Path file) throws IOException {
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        switch (extension) {
+            case "png":
+            case "gif":
+            case "bmp":
+            case "jpg":
+            case "jpeg":
+                if (name.startsWith("/fonts/")) {
+                    addFont(name, file);
+                } else {
+                    addImage(name, file);
+                }
+                break;
+            case "wav":
+            case "aiff":
+            case "au":
+                addSound(name, file);
+                break;
+            default:
+                packed.add(new Packed(name, AssetPack.RAW, Files.readAllBytes(file), 0, 0, 0, 0));
+                break;
+        }
+    }
+
+    private Image decode(Path file) throws IOException {
+        BufferedImage image = ImageIO.read(file.toFile());
+        if (image == null) {
+            throw new IOException("No image reader for " + file);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        return new Image(image.getRGB(0, 0, width, height, null, 0, width), width, height);
+    }
+
+    private void addImage(String name, Path file) throws IOException {
+        Image image = decode(file);
+        int[] tiles = tileSizes.getOrDefault(name, new int[2]);
+        packed.add(new Packed(name, AssetPack.IMAGE, ints(image.getPixels()), image.getWidth(), image.getHeight(), tiles[0], tiles[1]));
+    }
+
+    private void addFont(String name, Path file) throws IOException {
+        Image image = decode(file);
+        Font font = new Font(image, 0);
+        Glyph[] glyphs = font.getGlyphs();
+
+        int[] data = new int[image.getPixels().length + font.getGlyphCount() * 3];
+        System.arraycopy(image.getPixels(), 0, data, 0, image.getPixels().length);
+        int base = image.getPixels().length;
+        for (int i = 0; i < font.getGlyphCount(); i++) {
+            data[base + i * 3] = glyphs[i].getCodepoint();
+            data[base + i * 3 + 1] = glyphs[i].getOffset();
+            data[base + i * 3 + 2] = glyphs[i].getWidth();
+        }
+        packed.add(new Packed(name, AssetPack.FONT, ints(data), image.getWidth(), image.getHeight(), font.getGlyphCount(), 0));
+    }
+
+    // Kept at the source rate, the mixer resamples when it loads the sound.
+    private void addSound(String name, Path file) throws IOException {
+        try (AudioInputStream input = AudioSystem.getAudioInputStream(file.toFile())) {
+            AudioFormat baseFormat = input.getFormat();
+            AudioFormat decodeFormat = new AudioFormat(
+                    AudioFormat.Encoding.PCM_SIGNED,
+                    baseFormat.getSampleRate(),
+                    16,
+                    baseFormat.getChannels(),
+                    baseFormat.getChannels() * 2,
+                    baseFormat.getSampleRate(),
+                    false
+            );
+            byte[] pcm;
+            try (AudioInputStream decoded = AudioSystem.getAudioInputStream(decodeFormat, input)) {
+                pcm = decoded.readAllBytes();
+            }
+            packed.add(new Packed(name, AssetPack.SOUND, pcm, Float.floatToIntBits(baseFormat.getSampleRate()),
+                    baseFormat.getChannels(), pcm.length / decodeFormat.getFrameSize(), 0));
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("Cannot decode " + file, e);
+        }
+    }
+
+    private static byte[] ints(int[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+
+    public void write(Path pack) throws IOException {
+        int indexSize = 16;
+        for (Packed entry : packed) {
+            indexSize += 2 + entry.path.length + 4 + 8 + 8 + 4 * 4;
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(indexSize).order(ByteOrder.LITTLE_ENDIAN);
+        index.putInt(AssetPack.MAGIC);
+        index.putInt(AssetPack.VERSION);
+        index.putInt(packed.size());
+        index.putInt(0);
+
+        long offset = align(indexSize);
+        for (Packed entry : packed) {
+            index.putShort((short) entry.path.length);
+            index.put(entry.path);
+            index.putInt(entry.type);
+            index.putLong(offset);
+            index.putLong(entry.data.length);
+            index.putInt(entry.a);
+            index.putInt(entry.b);
+            index.putInt(entry.c);
+            index.putInt(entry.d);
+            offset = align(offset + entry.data.length);
+        }
+
+        try (OutputStream out = Files.newOutputStream(pack)) {
+            out.write(index.array());
+            long written = indexSize;
+            for (Packed entry : packed) {
+                out.write(new byte[(int) (align(written) - written)]);
+                out.write(entry.data);
+                written = align(written) + entry.data.length;
+            }
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static class Packed {
+        private final byte[] path;
+        private final int type;
+        private final byte[] data;
+        private final int a, b, c, d;
+
+        private Packed(String path, int type, byte[] data, int a, int b, int c, int d) {
+            this.path = path.getBytes(StandardCharsets.UTF_8);
+            if (this.path.length > 0xffff) {
+                throw new IllegalArgumentException("Asset path is too long: " + path);
+            }
+            this.type = type;
+            this.data = data;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+        }
+    }
+}
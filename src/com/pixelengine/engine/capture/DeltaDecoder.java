@@ -0,0 +1,80 @@
+package com.pixelengine.engine.capture;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+
+// Reads the stream DeltaEncoder writes, one whole frame at a time.
+public class DeltaDecoder implements AutoCloseable {
+    private final DataInputStream in;
+    private final int width, height;
+    private long frameNumber, time;
+
+    public DeltaDecoder(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in), 1 << 16));
+        if (this.in.readInt() != DeltaEncoder.MAGIC) {
+            throw new IOException("Not a delta capture");
+        }
+        int version = this.in.readInt();
+        if (version != DeltaEncoder.VERSION) {
+            throw new IOException("Unsupported delta capture version " + version);
+        }
+        width = this.in.readInt();
+        height = this.in.readInt();
+    }
+
+    // Applies the next frame's changes to frame, which must hold the frame
+    // before it (all zero for the first). Returns false at the end.
+    public boolean next(int[] frame) throws IOException {
+        if (frame.length != width * height) {
+            throw new IllegalArgumentException("Frame does not match " + width + "x" + height);
+        }
+        try {
+            frameNumber = in.readLong();
+        } catch (EOFException e) {
+            return false;
+        }
+        time = in.readLong();
+
+        int runs = in.readInt();
+        int i = 0;
+        for (int r = 0; r < runs; r++) {
+            i += in.readInt();
+            int length = in.readInt();
+            if (length < 0 || i < 0 || i + length > frame.length) {
+                throw new IOException("Run out of bounds in frame " + frameNumber);
+            }
+            for (int end = i + length; i < end; i++) {
+                frame[i] = in.readInt();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+//  ----- Getters -----
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Of the frame last returned by next
+    public long getFrameNumber() {
+        return frameNumber;
+    }
+
+    public long getTime() {
+        return time;
+    }
+}
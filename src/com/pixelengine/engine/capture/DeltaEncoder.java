@@ -0,0 +1,112 @@
+package com.pixelengine.engine.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// Each frame stored as the runs of pixels that changed since the one before,
+// then deflated. Mostly static scenes shrink to a few bytes a frame. Read
+// back with DeltaDecoder.
+//
+// Stream: MAGIC, VERSION, width, height, then per frame the frame number,
+// the capture time, a run count and for each run (skip, length, pixels).
+// Skips are counted from the end of the previous run.
+public class DeltaEncoder implements FrameEncoder {
+    public static final int MAGIC = 0x50584443; // "PXDC"
+    public static final int VERSION = 1;
+
+    // Unchanged gaps shorter than this are stored in their run rather than
+    // starting a new one, which costs less than two more ints of header
+    private static final int MIN_GAP = 3;
+
+    private final OutputStream target;
+    private DataOutputStream out;
+    private int[] previous, current;
+
+    public DeltaEncoder(OutputStream out) {
+        this.target = out;
+    }
+
+    @Override
+    public void begin(int width, int height) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(target, new Deflater(Deflater.BEST_SPEED)), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+
+        // The first frame is a delta against black
+        previous = new int[width * height];
+        current = new int[width * height];
+    }
+
+    @Override
+    public void encode(ByteBuffer frame, long frameNumber, long time) throws IOException {
+        frame.asIntBuffer().get(current);
+        int length = current.length;
+
+        out.writeLong(frameNumber);
+        out.writeLong(time);
+        out.writeInt(countRuns());
+
+        int end = 0;
+        int i = 0;
+        while (i < length) {
+            if (current[i] == previous[i]) {
+                i++;
+                continue;
+            }
+            int start = i;
+            int last = i;
+            for (i++; i < length && i - last <= MIN_GAP; i++) {
+                if (current[i] != previous[i]) last = i;
+            }
+            i = last + 1;
+
+            out.writeInt(start - end);
+            out.writeInt(i - start);
+            for (int j = start; j < i; j++) {
+                out.writeInt(current[j]);
+            }
+            end = i;
+        }
+
+        int[] swap = previous;
+        previous = current;
+        current = swap;
+    }
+
+    // Same walk as encode, so the count matches the runs written.
+    private int countRuns() {
+        int runs = 0;
+        int length = current.length;
+        int i = 0;
+        while (i < length) {
+            if (current[i] == previous[i]) {
+                i++;
+                continue;
+            }
+            int last = i;
+            for (i++; i < length && i - last <= MIN_GAP; i++) {
+                if (current[i] != previous[i]) last = i;
+            }
+            i = last + 1;
+            runs++;
+        }
+        return runs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        } else {
+            target.close();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.pixelengine.engine.capture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Copies finished frames into a ring of preallocated off heap slots and
+// hands them to an encoder on a background thread. The thread that renders
+// pays one bulk copy per frame and never waits: when the encoder falls a
+// whole ring behind, frames are dropped and counted instead.
+//
+// capture() must only be called from one thread at a time. Frames offered
+// after close() are dropped.
+public class FrameCapture implements Runnable {
+    private final int width, height;
+    private final FrameEncoder encoder;
+
+    private final ByteBuffer[] slots;
+    private final IntBuffer[] slotPixels;
+    private final long[] frameNumbers;
+    private final long[] times;
+
+    // Written only by the capturing and encoding thread respectively
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private long frameCount = 0;
+    private volatile long dropped = 0;
+
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean failed = false;
+
+    public FrameCapture(int width, int height, FrameEncoder encoder) throws IOException {
+        this(width, height, encoder, 8);
+    }
+
+    public FrameCapture(int width, int height, FrameEncoder encoder, int slotCount) throws IOException {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("Slot count must be positive, got " + slotCount);
+        }
+        this.width = width;
+        this.height = height;
+        this.encoder = encoder;
+
+        slots = new ByteBuffer[slotCount];
+        slotPixels = new IntBuffer[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.LITTLE_ENDIAN);
+            slotPixels[i] = slots[i].asIntBuffer();
+        }
+        frameNumbers = new long[slotCount];
+        times = new long[slotCount];
+
+        encoder.begin(width, height);
+        thread = new Thread(this, "PixelEngine-Capture");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Returns false when the frame was dropped. Frame numbers count every
+    // frame offered, so gaps in the output show where frames were dropped.
+    public boolean capture(int[] pixels) {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("Frame does not match " + width + "x" + height);
+        }
+        long frameNumber = frameCount++;
+        long position = tail.get();
+        if (!running || failed || position - head.getAcquire() >= slots.length) {
+            dropped++;
+            return false;
+        }
+
+        int index = (int) (position % slots.length);
+        IntBuffer slot = slotPixels[index];
+        slot.clear();
+        slot.put(pixels);
+        frameNumbers[index] = frameNumber;
+        times[index] = System.nanoTime();
+        tail.setRelease(position + 1);
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            long position = head.get();
+            if (position == tail.getAcquire()) {
+                if (!running) break;
+                LockSupport.parkNanos(10_000_000L);
+                continue;
+            }
+
+            int index = (int) (position % slots.length);
+            if (!failed) {
+                ByteBuffer slot = slots[index];
+                slot.clear();
+                try {
+                    encoder.encode(slot, frameNumbers[index], times[index]);
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    failed = true;
+                }
+            }
+            head.setRelease(position + 1);
+        }
+    }
+
+    // Encodes whatever is still queued, then closes the encoder.
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        encoder.close();
+    }
+
+//  ----- Getters -----
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public FrameEncoder getEncoder() {
+        return encoder;
+    }
+
+    public int getSlotCount() {
+        return slots.length;
+    }
+
+    // Frames offered so far, captured or not.
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getEncoded() {
+        return head.get();
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,16 @@
+package com.pixelengine.engine.capture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Receives captured frames on the capture thread, one at a time and in
+// order. The frame buffer holds width * height little endian ARGB ints and
+// is only valid until encode returns.
+public interface FrameEncoder {
+
+    void begin(int width, int height) throws IOException;
+
+    void encode(ByteBuffer frame, long frameNumber, long time) throws IOException;
+
+    void close() throws IOException;
+}
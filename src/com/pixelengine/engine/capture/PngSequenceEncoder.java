@@ -0,0 +1,44 @@
+package com.pixelengine.engine.capture;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// One PNG per frame, named by frame number, e.g. frame-000042.png.
+public class PngSequenceEncoder implements FrameEncoder {
+    private final File directory;
+    private final String prefix;
+    private BufferedImage image;
+    private int[] pixels;
+
+    public PngSequenceEncoder(File directory) {
+        this(directory, "frame-");
+    }
+
+    public PngSequenceEncoder(File directory, String prefix) {
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void begin(int width, int height) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    @Override
+    public void encode(ByteBuffer frame, long frameNumber, long time) throws IOException {
+        frame.asIntBuffer().get(pixels);
+        ImageIO.write(image, "png", new File(directory, String.format("%s%06d.png", prefix, frameNumber)));
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,38 @@
+package com.pixelengine.engine.capture;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+// Frames back to back with no header, which is what ffmpeg reads as
+//   ffmpeg -f rawvideo -pixel_format bgra -video_size WxH -framerate 60 -i capture.raw
+// Slots are written to the channel straight from off heap memory.
+public class RawEncoder implements FrameEncoder {
+    private final WritableByteChannel channel;
+
+    public RawEncoder(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    public RawEncoder(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void begin(int width, int height) {
+    }
+
+    @Override
+    public void encode(ByteBuffer frame, long frameNumber, long time) throws IOException {
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
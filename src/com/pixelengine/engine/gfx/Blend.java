@@ -0,0 +1,48 @@
+package com.pixelengine.engine.gfx;
+
+// Integer ARGB compositing. Red and blue are processed together as one
+// channel pair in the 0x00ff00ff lanes, and every division by 255 is the
+// exact, rounded (x + 128 + ((x + 128) >> 8)) >> 8 form, so no lane ever
+// carries into its neighbour.
+public final class Blend {
+
+    private Blend() {
+    }
+
+    public static int blend(int pixelColor, int value) {
+        int alpha = value >>> 24;
+        int inverse = 255 - alpha;
+
+        int rb = (value & 0xff00ff) * alpha + (pixelColor & 0xff00ff) * inverse + 0x800080;
+        rb = ((rb + ((rb >>> 8) & 0xff00ff)) >>> 8) & 0xff00ff;
+
+        int g = ((value >>> 8) & 0xff) * alpha + ((pixelColor >>> 8) & 0xff) * inverse + 0x80;
+        g = (g + (g >>> 8)) & 0xff00;
+
+        return 0xff000000 | rb | g;
+    }
+
+    public static int blendPremultiplied(int pixelColor, int value) {
+        int inverse = 255 - (value >>> 24);
+
+        int rb = (pixelColor & 0xff00ff) * inverse + 0x800080;
+        rb = ((rb + ((rb >>> 8) & 0xff00ff)) >>> 8) & 0xff00ff;
+
+        int g = ((pixelColor >>> 8) & 0xff) * inverse + 0x80;
+        g = (g + (g >>> 8)) & 0xff00;
+
+        return 0xff000000 | ((value & 0xffffff) + (rb | g));
+    }
+
+    public static int premultiply(int value) {
+        int alpha = value >>> 24;
+
+        int rb = (value & 0xff00ff) * alpha + 0x800080;
+        rb = ((rb + ((rb >>> 8) & 0xff00ff)) >>> 8) & 0xff00ff;
+
+        int g = ((value >>> 8) & 0xff) * alpha + 0x80;
+        g = (g + (g >>> 8)) & 0xff00;
+
+        return alpha << 24 | rb | g;
+    }
+}
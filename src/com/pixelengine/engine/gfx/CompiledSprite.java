@@ -0,0 +1,130 @@
+package com.pixelengine.engine.gfx;
+
+import java.util.Arrays;
+
+// An image compiled once into run-length encoded rows. Transparent pixels
+// are dropped entirely, the rest are stored as runs of opaque pixels, which
+// are copied in bulk, and runs of translucent pixels, which are blended.
+// The pixels are copied out, later edits to the source image are not seen.
+public class CompiledSprite {
+    public static final int OPAQUE = 0;
+    public static final int TRANSLUCENT = 1;
+
+    // Every run is x, length, type and the offset of its pixels in data.
+    public static final int RUN = 4;
+
+    private final int width, height;
+    private final boolean premultiplied;
+    private final int[] rowStarts;
+    private final int[] runs;
+    private final int[] data;
+    private final int opaquePixels, translucentPixels;
+
+    public CompiledSprite(Image image) {
+        this(image.getRegion());
+    }
+
+    public CompiledSprite(ImageRegion region) {
+        Image image = region.getImage();
+        int[] pixels = image.getPixels();
+        int stride = image.getWidth();
+
+        width = region.getWidth();
+        height = region.getHeight();
+        premultiplied = image.isPremultiplied();
+        rowStarts = new int[height + 1];
+
+        int[] runs = new int[64 * RUN];
+        int[] data = new int[64];
+        int runCount = 0;
+        int dataCount = 0;
+        int opaque = 0;
+
+        for (int y = 0; y < height; y++) {
+            rowStarts[y] = runCount;
+            int row = region.getX() + (region.getY() + y) * stride;
+            int x = 0;
+            while (x < width) {
+                int alpha = pixels[row + x] >>> 24;
+                if (alpha == 0) {
+                    x++;
+                    continue;
+                }
+
+                int type = alpha == 255 ? OPAQUE : TRANSLUCENT;
+                int start = x;
+                while (x < width && runType(pixels[row + x]) == type) {
+                    x++;
+                }
+
+                if (runCount * RUN == runs.length) {
+                    runs = Arrays.copyOf(runs, runs.length * 2);
+                }
+                if (dataCount + x - start > data.length) {
+                    data = Arrays.copyOf(data, Math.max(data.length * 2, dataCount + x - start));
+                }
+                int base = runCount * RUN;
+                runs[base] = start;
+                runs[base + 1] = x - start;
+                runs[base + 2] = type;
+                runs[base + 3] = dataCount;
+                System.arraycopy(pixels, row + start, data, dataCount, x - start);
+                dataCount += x - start;
+                runCount++;
+                if (type == OPAQUE) {
+                    opaque += x - start;
+                }
+            }
+        }
+        rowStarts[height] = runCount;
+
+        this.runs = Arrays.copyOf(runs, runCount * RUN);
+        this.data = Arrays.copyOf(data, dataCount);
+        opaquePixels = opaque;
+        translucentPixels = dataCount - opaque;
+    }
+
+    // Transparent pixels end a run of either type.
+    private static int runType(int pixel) {
+        int alpha = pixel >>> 24;
+        if (alpha == 0) return -1;
+        return alpha == 255 ? OPAQUE : TRANSLUCENT;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isPremultiplied() {
+        return premultiplied;
+    }
+
+    // The runs of row y are rowStarts[y] up to rowStarts[y + 1].
+    public int[] getRowStarts() {
+        return rowStarts;
+    }
+
+    public int[] getRuns() {
+        return runs;
+    }
+
+    public int[] getData() {
+        return data;
+    }
+
+    public int getOpaquePixels() {
+        return opaquePixels;
+    }
+
+    public int getTranslucentPixels() {
+        return translucentPixels;
+    }
+
+    public boolean isEmpty() {
+        return data.length == 0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.pixelengine.engine.gfx;
+
+public enum Coverage {
+    TRANSPARENT,
+    OPAQUE,
+    MIXED;
+
+    public static Coverage of(int[] pixels, int stride, int x, int y, int width, int height) {
+        boolean transparent = true;
+        boolean opaque = true;
+
+        for (int row = y; row < y + height; row++) {
+            int index = x + row * stride;
+            for (int i = index; i < index + width; i++) {
+                int alpha = pixels[i] >>> 24;
+                transparent &= alpha == 0;
+                opaque &= alpha == 255;
+            }
+            if (!transparent && !opaque) {
+                return MIXED;
+            }
+        }
+
+        if (transparent) {
+            return TRANSPARENT;
+        }
+        return opaque ? OPAQUE : MIXED;
+    }
+}
@@ -1,40 +1,154 @@
 package com.pixelengine.engine.gfx;
 
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
 public class Font {
-    public static final Font STANDARD = new Font("/fonts/standard.PNG");
+    public static final Font STANDARD = new Font("/fonts/standard.png");
+
+    // Glyphs live in pages of 256 codepoints, a page is only allocated once
+    // the font has a glyph in it.
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
 
     private Image fontImage;
-    private int[] offsets;
-    private int[] widths;
+    private Glyph[][] pages = new Glyph[(Character.MAX_CODE_POINT >> PAGE_BITS) + 1][];
+    private Glyph[] glyphs = new Glyph[0];
+    private int glyphCount = 0;
 
+    // The glyphs in the strip are consecutive codepoints starting at 0.
     public Font(String path) {
+        this(path, 0);
+    }
+
+    public Font(String path, int firstCodepoint) {
+        this(new Image(path), firstCodepoint);
+    }
+
+    public Font(Image fontImage, int firstCodepoint) {
+        this.fontImage = fontImage;
+        load(index -> firstCodepoint + index);
+    }
+
+    // Glyph i in the strip is codepoints[i], for fonts that only cover a few
+    // scattered ranges.
+    public Font(String path, int[] codepoints) {
         fontImage = new Image(path);
+        load(index -> index < codepoints.length ? codepoints[index] : -1);
+    }
 
-        offsets = new int[256];
-        widths = new int[256];
+    // A font whose glyph table was worked out ahead of time, glyph i covers
+    // widths[i] columns of the strip from offsets[i].
+    public Font(Image fontImage, int[] codepoints, int[] offsets, int[] widths) {
+        if (offsets.length != codepoints.length || widths.length != codepoints.length) {
+            throw new IllegalArgumentException("Glyph table columns differ in length");
+        }
+        this.fontImage = fontImage;
+        for (int i = 0; i < codepoints.length; i++) {
+            if (offsets[i] < 0 || widths[i] < 0 || offsets[i] + widths[i] > fontImage.getWidth()) {
+                throw new IllegalArgumentException("Glyph " + codepoints[i] + " is outside the font strip");
+            }
+            put(new Glyph(codepoints[i], fontImage.getPixels(), fontImage.getWidth(), offsets[i], widths[i], fontImage.getHeight()));
+        }
+    }
 
-        int unicode = 0;
+    private void load(IntUnaryOperator codepoints) {
+        int[] pixels = fontImage.getPixels();
+        int offset = 0;
+        int index = 0;
 
         for (int i = 0; i < fontImage.getWidth(); i++) {
-            if (fontImage.getPixels()[i] == 0xff0000ff) {
-                offsets[unicode] = i;
+            if (pixels[i] == 0xff0000ff) {
+                offset = i;
+            }
+            if (pixels[i] == 0xffffff00) {
+                int codepoint = codepoints.applyAsInt(index);
+                if (codepoint >= 0 && codepoint <= Character.MAX_CODE_POINT) {
+                    put(new Glyph(codepoint, pixels, fontImage.getWidth(), offset, i - offset, fontImage.getHeight()));
+                }
+                index++;
             }
-            if (fontImage.getPixels()[i] == 0xffffff00) {
-                widths[unicode] = i - offsets[unicode];
-                unicode++;
+        }
+    }
+
+    private void put(Glyph glyph) {
+        int page = glyph.getCodepoint() >> PAGE_BITS;
+        if (pages[page] == null) {
+            pages[page] = new Glyph[PAGE_SIZE];
+        }
+        if (pages[page][glyph.getCodepoint() & (PAGE_SIZE - 1)] != null) {
+            throw new IllegalArgumentException("Codepoint " + glyph.getCodepoint() + " has two glyphs");
+        }
+        pages[page][glyph.getCodepoint() & (PAGE_SIZE - 1)] = glyph;
+
+        if (glyphCount == glyphs.length) {
+            glyphs = Arrays.copyOf(glyphs, Math.max(glyphCount * 2, 64));
+        }
+        glyphs[glyphCount++] = glyph;
+    }
+
+    // Null when the font has no glyph for the codepoint.
+    public Glyph getGlyph(int codepoint) {
+        if (codepoint < 0 || codepoint > Character.MAX_CODE_POINT) return null;
+
+        Glyph[] page = pages[codepoint >> PAGE_BITS];
+        return page == null ? null : page[codepoint & (PAGE_SIZE - 1)];
+    }
+
+    // Characters the font has no glyph for take up no space.
+    public int getTextWidth(String text) {
+        int width = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codepoint = text.codePointAt(i);
+            Glyph glyph = getGlyph(codepoint);
+            if (glyph != null) {
+                width += glyph.getWidth();
             }
+            i += Character.charCount(codepoint);
         }
+        return width;
     }
 
     public Image getFontImage() {
         return fontImage;
     }
 
+    public int getHeight() {
+        return fontImage.getHeight();
+    }
+
+    public int getGlyphCount() {
+        return glyphCount;
+    }
+
+    // The glyphs in strip order, the first getGlyphCount() are valid.
+    public Glyph[] getGlyphs() {
+        return glyphs;
+    }
+
+    // Strip columns of codepoints 0 to 255, as fonts had before the glyph
+    // table. Built on each call, codepoints without a glyph read 0.
     public int[] getOffsets() {
+        int[] offsets = new int[PAGE_SIZE];
+        if (pages[0] != null) {
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                if (pages[0][i] != null) {
+                    offsets[i] = pages[0][i].getOffset();
+                }
+            }
+        }
         return offsets;
     }
 
     public int[] getWidths() {
+        int[] widths = new int[PAGE_SIZE];
+        if (pages[0] != null) {
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                if (pages[0][i] != null) {
+                    widths[i] = pages[0][i].getWidth();
+                }
+            }
+        }
         return widths;
     }
 }
@@ -0,0 +1,66 @@
+package com.pixelengine.engine.gfx;
+
+import java.util.Arrays;
+
+// One character of a font, stored as the horizontal runs of lit pixels so
+// drawing it never has to scan the font strip.
+public class Glyph {
+    private final int codepoint;
+    private final int offset;
+    private final int width, height;
+    private final int[] spans;
+
+    public Glyph(int codepoint, int[] pixels, int stride, int offset, int width, int height) {
+        this.codepoint = codepoint;
+        this.offset = offset;
+        this.width = width;
+        this.height = height;
+
+        int[] spans = new int[16 * 3];
+        int count = 0;
+        for (int y = 0; y < height; y++) {
+            int row = offset + y * stride;
+            int x = 0;
+            while (x < width) {
+                if (pixels[row + x] != 0xffffffff) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < width && pixels[row + x] == 0xffffffff) {
+                    x++;
+                }
+                if (count == spans.length) {
+                    spans = Arrays.copyOf(spans, count * 2);
+                }
+                spans[count] = y;
+                spans[count + 1] = start;
+                spans[count + 2] = x;
+                count += 3;
+            }
+        }
+        this.spans = Arrays.copyOf(spans, count);
+    }
+
+    public int getCodepoint() {
+        return codepoint;
+    }
+
+    // Where the glyph starts in the font strip.
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Lit runs as y, x0, x1 triples with x1 exclusive.
+    public int[] getSpans() {
+        return spans;
+    }
+}
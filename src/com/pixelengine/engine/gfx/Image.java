@@ -9,6 +9,8 @@ public class Image {
     private int width, height;
     private int[] pixels;
     private boolean alpha = false;
+    private boolean premultiplied = false;
+    private ImageRegion region;
 
     public Image(String path) {
         BufferedImage image = null;
@@ -26,6 +28,13 @@ public class Image {
         image.flush();
     }
 
+    public Image(String path, boolean premultiplied) {
+        this(path);
+        if (premultiplied) {
+            premultiply();
+        }
+    }
+
     public Image(int[] pixels, int width, int height) {
         this.pixels = pixels;
         this.width = width;
@@ -38,6 +47,7 @@ public class Image {
 
     public void setWidth(int width) {
         this.width = width;
+        invalidate();
     }
 
     public int getHeight() {
@@ -46,6 +56,7 @@ public class Image {
 
     public void setHeight(int height) {
         this.height = height;
+        invalidate();
     }
 
     public int[] getPixels() {
@@ -54,6 +65,37 @@ public class Image {
 
     public void setPixels(int[] pixels) {
         this.pixels = pixels;
+        invalidate();
+    }
+
+    public ImageRegion getRegion() {
+        if (region == null) {
+            region = new ImageRegion(this, 0, 0, width, height);
+        }
+        return region;
+    }
+
+    // Drops cached regions so they are rebuilt against the new size or pixels.
+    protected void invalidate() {
+        region = null;
+    }
+
+    public void premultiply() {
+        if (premultiplied) return;
+
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = Blend.premultiply(pixels[i]);
+        }
+        premultiplied = true;
+    }
+
+    public boolean isPremultiplied() {
+        return premultiplied;
+    }
+
+    // Marks pixels that are premultiplied already, nothing is converted.
+    public void setPremultiplied(boolean premultiplied) {
+        this.premultiplied = premultiplied;
     }
 
     public boolean isAlpha() {
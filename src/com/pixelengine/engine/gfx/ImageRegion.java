@@ -0,0 +1,49 @@
+package com.pixelengine.engine.gfx;
+
+// A rectangle inside an image's pixel array. Drawing a region reads the
+// parent pixels in place, nothing is copied.
+public class ImageRegion {
+    private final Image image;
+    private final int x, y, width, height;
+    private Coverage coverage;
+
+    public ImageRegion(Image image, int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > image.getWidth() || y + height > image.getHeight()) {
+            throw new IllegalArgumentException("Region " + width + "x" + height + " at " + x + "," + y + " is outside the image");
+        }
+        this.image = image;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        updateCoverage();
+    }
+
+    public void updateCoverage() {
+        coverage = Coverage.of(image.getPixels(), image.getWidth(), x, y, width, height);
+    }
+
+    public Image getImage() {
+        return image;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Coverage getCoverage() {
+        return coverage;
+    }
+}
@@ -2,29 +2,74 @@ package com.pixelengine.engine.gfx;
 
 public class ImageTile extends Image {
     private int tileWidth, tileHeight;
+    private ImageRegion[] tiles;
 
     public ImageTile(String path, int tileWidth, int tileHeight) {
         super(path);
         this.tileWidth = tileWidth;
         this.tileHeight = tileHeight;
+        updateTiles();
+    }
+
+    public ImageTile(int[] pixels, int width, int height, int tileWidth, int tileHeight) {
+        super(pixels, width, height);
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        updateTiles();
+    }
+
+    public void updateTiles() {
+        int columns = getColumns();
+        int rows = getRows();
+
+        tiles = new ImageRegion[columns * rows];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                tiles[x + y * columns] = new ImageRegion(this, x * tileWidth, y * tileHeight, tileWidth, tileHeight);
+            }
+        }
+    }
+
+    public ImageRegion getTile(int tileX, int tileY) {
+        if (tiles == null) {
+            updateTiles();
+        }
+        return tiles[tileX + tileY * getColumns()];
+    }
+
+    public Coverage getTileCoverage(int tileX, int tileY) {
+        return getTile(tileX, tileY).getCoverage();
     }
 
     public Image getTileImage(int tileX, int tileY) {
         int[] pixels = new int[tileWidth * tileHeight];
-        for (int x = 0; x < tileWidth; x++) {
-            for (int y = 0; y < tileHeight; y++) {
-                pixels[x + y * tileWidth] = this.getPixels()[(x + tileX * tileWidth) + (y + tileY * tileHeight) * this.getWidth()];
-            }
+        for (int y = 0; y < tileHeight; y++) {
+            System.arraycopy(this.getPixels(), tileX * tileWidth + (y + tileY * tileHeight) * this.getWidth(), pixels, y * tileWidth, tileWidth);
         }
         return new Image(pixels, tileWidth, tileHeight);
     }
 
+    public int getColumns() {
+        return getWidth() / tileWidth;
+    }
+
+    public int getRows() {
+        return getHeight() / tileHeight;
+    }
+
+    @Override
+    protected void invalidate() {
+        super.invalidate();
+        tiles = null;
+    }
+
     public int getTileWidth() {
         return tileWidth;
     }
 
     public void setTileWidth(int tileWidth) {
         this.tileWidth = tileWidth;
+        invalidate();
     }
 
     public int getTileHeight() {
@@ -33,5 +78,6 @@ public class ImageTile extends Image {
 
     public void setTileHeight(int tileHeight) {
         this.tileHeight = tileHeight;
+        invalidate();
     }
 }
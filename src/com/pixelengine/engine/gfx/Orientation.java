@@ -0,0 +1,70 @@
+package com.pixelengine.engine.gfx;
+
+// The eight ways to flip and quarter turn an image. Each one is a pure
+// index remap, so drawing in any of them reads the same pixels as the
+// image itself. Rotations are clockwise on screen.
+public enum Orientation {
+    NORMAL(false, false, false),
+    FLIP_X(false, true, false),
+    FLIP_Y(false, false, true),
+    ROTATE_90(true, false, true),
+    ROTATE_180(false, true, true),
+    ROTATE_270(true, true, false),
+    TRANSPOSE(true, false, false),
+    TRANSVERSE(true, true, true);
+
+    private static final Orientation[] VALUES = values();
+
+    // Destination x walks the source's y axis when swapped, and the
+    // mirrored source axes are walked from their far end
+    private final boolean swapped, mirrorX, mirrorY;
+
+    Orientation(boolean swapped, boolean mirrorX, boolean mirrorY) {
+        this.swapped = swapped;
+        this.mirrorX = mirrorX;
+        this.mirrorY = mirrorY;
+    }
+
+    public static Orientation of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public int getWidth(int width, int height) {
+        return swapped ? height : width;
+    }
+
+    public int getHeight(int width, int height) {
+        return swapped ? width : height;
+    }
+
+    // Index of the source pixel drawn at the destination's top left corner.
+    public int start(ImageRegion region) {
+        int stride = region.getImage().getWidth();
+        int x = region.getX() + (mirrorX ? region.getWidth() - 1 : 0);
+        int y = region.getY() + (mirrorY ? region.getHeight() - 1 : 0);
+        return x + y * stride;
+    }
+
+    // Source index step for one pixel right in the destination.
+    public int stepX(ImageRegion region) {
+        return swapped ? stepSourceY(region) : stepSourceX();
+    }
+
+    // Source index step for one row down in the destination.
+    public int stepY(ImageRegion region) {
+        return swapped ? stepSourceX() : stepSourceY(region);
+    }
+
+    private int stepSourceX() {
+        return mirrorX ? -1 : 1;
+    }
+
+    private int stepSourceY(ImageRegion region) {
+        int stride = region.getImage().getWidth();
+        return mirrorY ? -stride : stride;
+    }
+
+    public boolean isSwapped() {
+        return swapped;
+    }
+}
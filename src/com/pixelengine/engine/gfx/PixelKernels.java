@@ -0,0 +1,160 @@
+package com.pixelengine.engine.gfx;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// The row loops the rasterizer spends its time in. This class is the plain
+// scalar version and the reference every other backend has to match bit for
+// bit. getDefault() picks VectorKernels when the jdk.incubator.vector module
+// is present (run with --add-modules jdk.incubator.vector) and it passes
+// verify() on this machine, and falls back to the scalar loops otherwise.
+// Setting -Dpixelengine.kernels=scalar forces the scalar loops.
+public class PixelKernels {
+    private static final String VECTOR_KERNELS = "com.pixelengine.engine.gfx.VectorKernels";
+
+    private static PixelKernels defaultKernels;
+
+    public static synchronized PixelKernels getDefault() {
+        if (defaultKernels == null) {
+            defaultKernels = select();
+        }
+        return defaultKernels;
+    }
+
+    private static PixelKernels select() {
+        PixelKernels scalar = new PixelKernels();
+        if ("scalar".equals(System.getProperty("pixelengine.kernels"))) {
+            return scalar;
+        }
+
+        try {
+            PixelKernels vector = (PixelKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+            if (verify(vector, scalar)) {
+                return vector;
+            }
+            System.err.println("Vector kernels do not match the scalar ones, using scalar");
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // No vector backend on the classpath or the module is not loaded
+        }
+        return scalar;
+    }
+
+    public String getName() {
+        return "scalar";
+    }
+
+//  ----- Kernels -----
+
+    public void fill(int[] dst, int from, int to, int value) {
+        Arrays.fill(dst, from, to, value);
+    }
+
+    // Blends one straight alpha color over every pixel from from to to.
+    public void blendColor(int[] dst, int from, int to, int color) {
+        for (int i = from; i < to; i++) {
+            dst[i] = Blend.blend(dst[i], color);
+        }
+    }
+
+    public void blend(int[] dst, int dstIndex, int[] src, int srcIndex, int length, boolean premultiplied) {
+        int offset = srcIndex - dstIndex;
+        if (premultiplied) {
+            for (int i = dstIndex; i < dstIndex + length; i++) {
+                dst[i] = Blend.blendPremultiplied(dst[i], src[i + offset]);
+            }
+        } else {
+            for (int i = dstIndex; i < dstIndex + length; i++) {
+                dst[i] = Blend.blend(dst[i], src[i + offset]);
+            }
+        }
+    }
+
+    // Returns the end of the run from from where zBuffer <= zDepth.
+    public int depthRun(int[] zBuffer, int from, int to, int zDepth) {
+        while (from < to && zBuffer[from] <= zDepth) {
+            from++;
+        }
+        return from;
+    }
+
+//  ----- Verification -----
+
+    // Runs both backends over the same random rows, every length up to a
+    // few vector widths and every alpha class, and compares the results.
+    public static boolean verify(PixelKernels kernels, PixelKernels reference) {
+        Random random = new Random(0x5049584c);
+        int size = 300;
+        int[] src = new int[size];
+        int[] a = new int[size];
+        int[] b = new int[size];
+
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < size; i++) {
+                int alpha;
+                switch (random.nextInt(4)) {
+                    case 0: alpha = 0; break;
+                    case 1: alpha = 255; break;
+                    default: alpha = random.nextInt(256); break;
+                }
+                src[i] = alpha << 24 | (random.nextInt() & 0xffffff);
+                a[i] = random.nextInt();
+            }
+            int from = random.nextInt(size / 2);
+            int length = round < 70 ? round : random.nextInt(size - from);
+            int srcIndex = random.nextInt(size - length + 1);
+            int color = src[random.nextInt(size)];
+
+            System.arraycopy(a, 0, b, 0, size);
+            kernels.fill(a, from, from + length, color);
+            reference.fill(b, from, from + length, color);
+            if (!Arrays.equals(a, b)) return false;
+
+            kernels.blendColor(a, from, from + length, color);
+            reference.blendColor(b, from, from + length, color);
+            if (!Arrays.equals(a, b)) return false;
+
+            for (int i = 0; i < size; i++) {
+                a[i] = b[i] = random.nextInt();
+            }
+            kernels.blend(a, from, src, srcIndex, length, false);
+            reference.blend(b, from, src, srcIndex, length, false);
+            if (!Arrays.equals(a, b)) return false;
+
+            for (int i = 0; i < size; i++) {
+                src[i] = Blend.premultiply(src[i]);
+            }
+            kernels.blend(a, from, src, srcIndex, length, true);
+            reference.blend(b, from, src, srcIndex, length, true);
+            if (!Arrays.equals(a, b)) return false;
+
+            int zDepth = random.nextInt(8) - 4;
+            for (int i = 0; i < size; i++) {
+                a[i] = random.nextInt(64) == 0 ? zDepth + 1 + random.nextInt(4) : zDepth - random.nextInt(4);
+            }
+            if (kernels.depthRun(a, from, from + length, zDepth) != reference.depthRun(a, from, from + length, zDepth)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Loads VectorKernels directly and checks it against the scalar loops,
+    // exits 1 when it can't be loaded or differs. Bypasses getDefault(),
+    // which would quietly fall back to scalar and compare it to itself.
+    public static void main(String[] args) {
+        PixelKernels vector;
+        try {
+            vector = (PixelKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.out.println("Pixel kernels: cannot load " + VECTOR_KERNELS + ": " + e);
+            System.exit(1);
+            return;
+        }
+
+        boolean matches = verify(vector, new PixelKernels());
+        System.out.println("Pixel kernels: " + vector.getName() + (matches ? ", matches scalar" : ", DIFFERS from scalar"));
+        if (!matches) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.pixelengine.engine.gfx;
+
+import java.util.Arrays;
+
+// Turns lines, ellipses and polygons into horizontal spans, stored as
+// (y, x0, x1) triples like glyph spans with x1 exclusive. The spans of one
+// shape never overlap, so a translucent shape blends every pixel once.
+// Only rows inside the row range are emitted. Lines also keep to the column
+// range, for everything else clipping the columns is left to whoever fills
+// the spans.
+public class Primitives {
+    private int[] spans = new int[64 * 3];
+    private int count = 0;
+    private int rowY0 = Integer.MIN_VALUE, rowY1 = Integer.MAX_VALUE;
+    private int columnX0 = Integer.MIN_VALUE, columnX1 = Integer.MAX_VALUE;
+    private double clipT0, clipT1;
+
+    // Scratch for ellipse half widths, polygon crossings and vertices
+    private int[] widths = new int[64];
+    private int[] crossings = new int[16];
+    private int[] fixedX = new int[4], fixedY = new int[4];
+
+    // Vertices are pixel centres, in fixed point with this many fraction bits
+    private static final int SHIFT = 8;
+    private static final int ONE = 1 << SHIFT;
+    private static final int HALF = ONE / 2;
+
+    public void setRows(int y0, int y1) {
+        rowY0 = y0;
+        rowY1 = y1;
+    }
+
+    public void setColumns(int x0, int x1) {
+        columnX0 = x0;
+        columnX1 = x1;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    private void emit(int y, int x0, int x1) {
+        if (y < rowY0 || y >= rowY1 || x0 >= x1) return;
+
+        if (count * 3 == spans.length) {
+            spans = Arrays.copyOf(spans, spans.length * 2);
+        }
+        int base = count * 3;
+        spans[base] = y;
+        spans[base + 1] = x0;
+        spans[base + 2] = x1;
+        count++;
+    }
+
+//  ----- Lines -----
+
+    // Bresenham, with the pixels of each row merged into one span. Lines are
+    // always walked top to bottom so both directions pick the same pixels.
+    // Instead of stepping from the end points, the error term is solved for
+    // each row inside the clip, so far away end points cost nothing.
+    public void line(int x1, int y1, int x2, int y2) {
+        clear();
+        if (y1 > y2) {
+            int t = x1; x1 = x2; x2 = t;
+            t = y1; y1 = y2; y2 = t;
+        }
+        long dx = Math.abs((long) x2 - x1);
+        long dy = (long) y2 - y1;
+        int sx = x1 < x2 ? 1 : -1;
+
+        long first = Math.max(0, (long) rowY0 - y1);
+        long last = Math.min(dy, (long) rowY1 - 1 - y1);
+        if (first > last) return;
+
+        if (dx >= dy) {
+            // Shallow, row j runs from the step after the last one of row
+            // j - 1 up to lastStep(dx, dy, j)
+            long k0 = first == 0 ? 0 : lastStep(dx, dy, first - 1) + 1;
+            for (long j = first; j <= last; j++) {
+                long k1 = j == dy ? dx : lastStep(dx, dy, j);
+                emitSteps(y1 + j, x1, sx, k0, k1);
+                k0 = k1 + 1;
+            }
+        } else {
+            // Steep, one pixel per row and column k runs down to row
+            // lastStep(dy, dx, k)
+            long k = 0;
+            if (dx > 0) {
+                k = Math.max(0, Math.min(dx, (long) Math.ceil((2.0 * dx * first - dy) / (2.0 * dy))));
+                while (k > 0 && lastStep(dy, dx, k - 1) >= first) k--;
+                while (k < dx && lastStep(dy, dx, k) < first) k++;
+            }
+            for (long j = first; j <= last; j++) {
+                if (k < dx && lastStep(dy, dx, k) < j) k++;
+                emitSteps(y1 + j, x1, sx, k, k);
+            }
+        }
+    }
+
+    // The last step along the major axis taken on minor step i, where the
+    // doubled error 2 * (major * (i + 1) - minor * (k + 1)) drops below major.
+    private static long lastStep(long major, long minor, long i) {
+        return mulDiv(major, 2 * i + 1, 2 * minor);
+    }
+
+    // floor(a * b / c) for non negative a, b and positive c, exact even where
+    // a * b does not fit a long.
+    private static long mulDiv(long a, long b, long c) {
+        long q = (long) ((double) a * b / c);
+        while (q > 0 && productGreater(q, c, a, b)) q--;
+        while (!productGreater(q + 1, c, a, b)) q++;
+        return q;
+    }
+
+    private static boolean productGreater(long a, long b, long c, long d) {
+        long high = Math.multiplyHigh(a, b), otherHigh = Math.multiplyHigh(c, d);
+        return high != otherHigh ? high > otherHigh : Long.compareUnsigned(a * b, c * d) > 0;
+    }
+
+    // Steps k0 to k1 from x along sx, clipped to the columns.
+    private void emitSteps(long y, int x, int sx, long k0, long k1) {
+        long x0 = sx > 0 ? x + k0 : x - k1;
+        long x1 = (sx > 0 ? x + k1 : x - k0) + 1;
+        x0 = Math.max(x0, columnX0);
+        x1 = Math.min(x1, columnX1);
+        if (x0 < x1) {
+            emit((int) y, (int) x0, (int) x1);
+        }
+    }
+
+    // A line thickness pixels wide, filled as the rectangle around it. The
+    // ends reach half a pixel past the end points so they are covered. End
+    // points far outside the clip are pulled in first, Liang-Barsky with room
+    // for the width, so the fixed point corners stay in range.
+    public void thickLine(int x1, int y1, int x2, int y2, int thickness) {
+        double dx = (double) x2 - x1;
+        double dy = (double) y2 - y1;
+        double length = Math.sqrt(dx * dx + dy * dy);
+
+        double pad = thickness + 2.0;
+        clipT0 = 0;
+        clipT1 = 1;
+        if (!clipEdge(-dx, x1 - (columnX0 - pad)) || !clipEdge(dx, columnX1 + pad - x1)
+                || !clipEdge(-dy, y1 - (rowY0 - pad)) || !clipEdge(dy, rowY1 + pad - y1)) {
+            clear();
+            return;
+        }
+        double startX = x1 + clipT0 * dx, startY = y1 + clipT0 * dy;
+        double endX = x1 + clipT1 * dx, endY = y1 + clipT1 * dy;
+
+        if (length == 0) {
+            dx = 1;
+            length = 1;
+        }
+        double ux = dx / length * HALF, uy = dy / length * HALF;
+        double nx = -uy * thickness, ny = ux * thickness;
+
+        double ax = startX * ONE + HALF - ux, ay = startY * ONE + HALF - uy;
+        double bx = endX * ONE + HALF + ux, by = endY * ONE + HALF + uy;
+        ensureVertices(4);
+        fixedX[0] = (int) Math.round(ax + nx);
+        fixedY[0] = (int) Math.round(ay + ny);
+        fixedX[1] = (int) Math.round(bx + nx);
+        fixedY[1] = (int) Math.round(by + ny);
+        fixedX[2] = (int) Math.round(bx - nx);
+        fixedY[2] = (int) Math.round(by - ny);
+        fixedX[3] = (int) Math.round(ax - nx);
+        fixedY[3] = (int) Math.round(ay - ny);
+        fillFixed(4);
+    }
+
+    // One Liang-Barsky boundary, p * t <= q. Returns false once nothing is left.
+    private boolean clipEdge(double p, double q) {
+        if (p == 0) {
+            return q >= 0;
+        }
+        double t = q / p;
+        if (p < 0) {
+            clipT0 = Math.max(clipT0, t);
+        } else {
+            clipT1 = Math.min(clipT1, t);
+        }
+        return clipT0 <= clipT1;
+    }
+
+//  ----- Ellipses -----
+
+    // Midpoint circles and ellipses, with the half width of every row out
+    // from the centre worked out first and the spans emitted from those.
+    public void ellipse(int cx, int cy, int rx, int ry, boolean filled) {
+        clear();
+        if (rx < 0 || ry < 0) return;
+        if (cy + ry < rowY0 || cy - ry >= rowY1) return;
+
+        if (widths.length < ry + 2) {
+            widths = new int[ry + 2];
+        }
+        Arrays.fill(widths, 0, ry + 1, 0);
+        widths[ry + 1] = -1;
+        if (rx == ry) {
+            circleWidths(rx);
+        } else if (ry == 0) {
+            widths[0] = rx;
+        } else {
+            ellipseWidths(rx, ry);
+        }
+
+        for (int y = -ry; y <= ry; y++) {
+            int row = Math.abs(y);
+            int outer = widths[row];
+            // Outlines keep what the next row out does not cover, and at
+            // least the last pixel of the row
+            int inner = filled ? 0 : Math.min(widths[row + 1] + 1, outer);
+            if (inner == 0) {
+                emit(cy + y, cx - outer, cx + outer + 1);
+            } else {
+                emit(cy + y, cx - outer, cx - inner + 1);
+                emit(cy + y, cx + inner, cx + outer + 1);
+            }
+        }
+    }
+
+    private void circleWidths(int r) {
+        int x = r, y = 0;
+        int d = 1 - r;
+        while (x >= y) {
+            widths[y] = Math.max(widths[y], x);
+            widths[x] = Math.max(widths[x], y);
+            y++;
+            if (d < 0) {
+                d += 2 * y + 1;
+            } else {
+                x--;
+                d += 2 * (y - x) + 1;
+            }
+        }
+    }
+
+    // The two region midpoint ellipse, decision values are kept four times
+    // over so they stay whole numbers.
+    private void ellipseWidths(int rx, int ry) {
+        long rx2 = (long) rx * rx;
+        long ry2 = (long) ry * ry;
+        int x = 0, y = ry;
+        long dx = 0, dy = 2 * rx2 * y;
+
+//      ----- Region 1, where the slope is shallower than -1 -----
+        long d = 4 * ry2 - 4 * rx2 * ry + rx2;
+        while (dx < dy) {
+            widths[y] = Math.max(widths[y], x);
+            x++;
+            dx += 2 * ry2;
+            if (d < 0) {
+                d += 4 * (dx + ry2);
+            } else {
+                y--;
+                dy -= 2 * rx2;
+                d += 4 * (dx - dy + ry2);
+            }
+        }
+
+//      ----- Region 2, the steep part down to the x axis -----
+        d = ry2 * (2L * x + 1) * (2L * x + 1) + 4 * rx2 * ((long) y - 1) * ((long) y - 1) - 4 * rx2 * ry2;
+        while (y >= 0) {
+            widths[y] = Math.max(widths[y], x);
+            y--;
+            dy -= 2 * rx2;
+            if (d > 0) {
+                d += 4 * (rx2 - dy);
+            } else {
+                x++;
+                dx += 2 * ry2;
+                d += 4 * (dx - dy + rx2);
+            }
+        }
+    }
+
+//  ----- Polygons -----
+
+    // Scanline fill with the even-odd rule, so concave and self intersecting
+    // polygons work. Vertices are pixel centres and a pixel is filled when
+    // its centre is inside, which leaves the right and bottom edges out and
+    // lets polygons that share an edge tile without overlap.
+    public void polygon(int[] xs, int[] ys, int vertexCount) {
+        if (vertexCount < 0 || vertexCount > xs.length || vertexCount > ys.length) {
+            throw new IllegalArgumentException("Vertex count " + vertexCount + " does not fit the vertex arrays");
+        }
+        ensureVertices(vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            fixedX[i] = (xs[i] << SHIFT) + HALF;
+            fixedY[i] = (ys[i] << SHIFT) + HALF;
+        }
+        fillFixed(vertexCount);
+    }
+
+    private void ensureVertices(int vertexCount) {
+        if (fixedX.length < vertexCount) {
+            fixedX = new int[vertexCount];
+            fixedY = new int[vertexCount];
+        }
+    }
+
+    private void fillFixed(int vertexCount) {
+        clear();
+        if (vertexCount < 3) return;
+
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < vertexCount; i++) {
+            minY = Math.min(minY, fixedY[i]);
+            maxY = Math.max(maxY, fixedY[i]);
+        }
+        // Rows whose centre lies in [minY, maxY)
+        int y0 = Math.max(ceilPixel(minY), rowY0);
+        int y1 = Math.min(ceilPixel(maxY), rowY1);
+
+        if (crossings.length < vertexCount) {
+            crossings = new int[vertexCount];
+        }
+        for (int y = y0; y < y1; y++) {
+            int centre = (y << SHIFT) + HALF;
+            int n = 0;
+            for (int i = 0, j = vertexCount - 1; i < vertexCount; j = i++) {
+                int ya = fixedY[j], yb = fixedY[i];
+                if ((ya <= centre && centre < yb) || (yb <= centre && centre < ya)) {
+                    int xa = fixedX[j], xb = fixedX[i];
+                    crossings[n++] = (int) (xa + (long) (centre - ya) * (xb - xa) / (yb - ya));
+                }
+            }
+
+            // Insertion sort, there are only ever a few crossings per row
+            for (int i = 1; i < n; i++) {
+                int value = crossings[i];
+                int k = i - 1;
+                while (k >= 0 && crossings[k] > value) {
+                    crossings[k + 1] = crossings[k];
+                    k--;
+                }
+                crossings[k + 1] = value;
+            }
+            for (int i = 0; i + 1 < n; i += 2) {
+                emit(y, ceilPixel(crossings[i]), ceilPixel(crossings[i + 1]));
+            }
+        }
+    }
+
+    // The first pixel whose centre is at or past the fixed point coordinate.
+    private static int ceilPixel(int fixed) {
+        return Math.floorDiv(fixed - HALF + ONE - 1, ONE);
+    }
+
+//  ----- Getters -----
+
+    public int[] getSpans() {
+        return spans;
+    }
+
+    // Spans emitted by the last shape, three ints each.
+    public int getSpanCount() {
+        return count;
+    }
+}
@@ -0,0 +1,157 @@
+package com.pixelengine.engine.gfx;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Pre-rasterized text runs keyed by string, font and color, evicted least
+// recently used first once either the entry or the pixel budget runs out.
+// Text that stays the same from frame to frame is then a single blit.
+// Not thread safe, every RenderEngine owns its own cache.
+public class TextCache {
+    private final LinkedHashMap<Key, ImageRegion> runs = new LinkedHashMap<Key, ImageRegion>(64, 0.75f, true);
+    private final Key lookup = new Key();
+
+    private int maxEntries;
+    private long maxPixels;
+    private long cachedPixels = 0;
+    private long hits = 0, misses = 0;
+
+    public TextCache() {
+        this(256, 1 << 20);
+    }
+
+    public TextCache(int maxEntries, long maxPixels) {
+        if (maxEntries < 0 || maxPixels < 0) {
+            throw new IllegalArgumentException("Cache limits must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxPixels = maxPixels;
+    }
+
+    public ImageRegion get(Font font, String text, int color) {
+        lookup.set(font, text, color);
+        ImageRegion run = runs.get(lookup);
+        if (run != null) {
+            hits++;
+            return run;
+        }
+        misses++;
+
+        run = rasterize(font, text, color);
+        long size = (long) run.getWidth() * run.getHeight();
+        if (size > maxPixels || maxEntries == 0) {
+            return run;
+        }
+
+        Key key = new Key();
+        key.set(font, text, color);
+        runs.put(key, run);
+        cachedPixels += size;
+        evict();
+        return run;
+    }
+
+    public void clear() {
+        runs.clear();
+        cachedPixels = 0;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, ImageRegion>> eldest = runs.entrySet().iterator();
+        while (eldest.hasNext() && (runs.size() > maxEntries || cachedPixels > maxPixels)) {
+            ImageRegion run = eldest.next().getValue();
+            cachedPixels -= (long) run.getWidth() * run.getHeight();
+            eldest.remove();
+        }
+    }
+
+    public static ImageRegion rasterize(Font font, String text, int color) {
+        int width = font.getTextWidth(text);
+        int height = font.getHeight();
+        int[] pixels = new int[width * height];
+
+        int offset = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codepoint = text.codePointAt(i);
+            i += Character.charCount(codepoint);
+
+            Glyph glyph = font.getGlyph(codepoint);
+            if (glyph == null) continue;
+
+            int[] spans = glyph.getSpans();
+            for (int s = 0; s < spans.length; s += 3) {
+                int row = spans[s] * width + offset;
+                Arrays.fill(pixels, row + spans[s + 1], row + spans[s + 2], color);
+            }
+            offset += glyph.getWidth();
+        }
+
+        Image image = new Image(pixels, width, height);
+        image.setAlpha(true);
+        return image.getRegion();
+    }
+
+//  ----- Getters & Setters -----
+
+    public int size() {
+        return runs.size();
+    }
+
+    public long getCachedPixels() {
+        return cachedPixels;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        evict();
+    }
+
+    public long getMaxPixels() {
+        return maxPixels;
+    }
+
+    public void setMaxPixels(long maxPixels) {
+        this.maxPixels = maxPixels;
+        evict();
+    }
+
+    private static final class Key {
+        private Font font;
+        private String text;
+        private int color;
+        private int hash;
+
+        private void set(Font font, String text, int color) {
+            this.font = font;
+            this.text = text;
+            this.color = color;
+            hash = (System.identityHashCode(font) * 31 + text.hashCode()) * 31 + color;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return font == key.font && color == key.color && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.pixelengine.engine.gfx;
+
+import java.util.Arrays;
+
+// A grid of tile indices into an ImageTile sheet. The grid is split into
+// square chunks that are baked into off-screen images the first time they
+// are drawn, so a chunk costs one blit instead of one draw per tile. A
+// chunk is rebaked only after one of its tiles changes, and only the most
+// recently drawn chunks are kept so huge maps stay within a fixed budget.
+//
+// Tile indices count across the sheet row by row, EMPTY leaves a hole.
+public class TileMap {
+    public static final int EMPTY = -1;
+
+    private ImageTile sheet;
+    private int columns, rows;
+    private int[] tiles;
+
+    private int chunkSize;
+    private int chunkColumns, chunkRows;
+    private ImageRegion[] chunks;
+    private long[] chunkUses;
+    private long uses = 0;
+
+    private int[] baked;
+    private int bakedCount = 0;
+    private int maxChunks = 64;
+    private long bakes = 0;
+
+    public TileMap(ImageTile sheet, int columns, int rows) {
+        this(sheet, columns, rows, 16);
+    }
+
+    public TileMap(ImageTile sheet, int columns, int rows, int chunkSize) {
+        if (columns <= 0 || rows <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Map " + columns + "x" + rows + " with chunk size " + chunkSize + " is empty");
+        }
+        this.sheet = sheet;
+        this.columns = columns;
+        this.rows = rows;
+        this.chunkSize = chunkSize;
+
+        tiles = new int[columns * rows];
+        Arrays.fill(tiles, EMPTY);
+
+        chunkColumns = (columns + chunkSize - 1) / chunkSize;
+        chunkRows = (rows + chunkSize - 1) / chunkSize;
+        chunks = new ImageRegion[chunkColumns * chunkRows];
+        chunkUses = new long[chunks.length];
+        baked = new int[maxChunks];
+    }
+
+    public TileMap(ImageTile sheet, int[] tiles, int columns, int rows, int chunkSize) {
+        this(sheet, columns, rows, chunkSize);
+        if (tiles.length != columns * rows) {
+            throw new IllegalArgumentException("Expected " + columns * rows + " tiles, got " + tiles.length);
+        }
+        for (int i = 0; i < tiles.length; i++) {
+            checkIndex(tiles[i]);
+        }
+        System.arraycopy(tiles, 0, this.tiles, 0, tiles.length);
+    }
+
+    public int getTile(int x, int y) {
+        return tiles[x + y * columns];
+    }
+
+    public void setTile(int x, int y, int index) {
+        if (x < 0 || y < 0 || x >= columns || y >= rows) {
+            throw new IllegalArgumentException("Tile " + x + "," + y + " is outside the map");
+        }
+        checkIndex(index);
+        if (tiles[x + y * columns] == index) return;
+
+        tiles[x + y * columns] = index;
+        drop(x / chunkSize + (y / chunkSize) * chunkColumns);
+    }
+
+    // Fills a rectangle of tiles, bounds are exclusive.
+    public void fill(int x0, int y0, int x1, int y1, int index) {
+        checkIndex(index);
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, columns);
+        y1 = Math.min(y1, rows);
+        if (x0 >= x1 || y0 >= y1) return;
+
+        for (int y = y0; y < y1; y++) {
+            Arrays.fill(tiles, x0 + y * columns, x1 + y * columns, index);
+        }
+        for (int cy = y0 / chunkSize; cy <= (y1 - 1) / chunkSize; cy++) {
+            for (int cx = x0 / chunkSize; cx <= (x1 - 1) / chunkSize; cx++) {
+                drop(cx + cy * chunkColumns);
+            }
+        }
+    }
+
+    // Rebakes every chunk, for when the sheet's pixels were edited.
+    public void invalidate() {
+        while (bakedCount > 0) {
+            drop(baked[0]);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < EMPTY || index >= sheet.getColumns() * sheet.getRows()) {
+            throw new IllegalArgumentException("Tile index " + index + " is not in the sheet");
+        }
+    }
+
+//  ----- Chunks -----
+
+    // The baked image of a chunk, baking it first if it is missing or stale.
+    public ImageRegion getChunk(int chunkX, int chunkY) {
+        int chunk = chunkX + chunkY * chunkColumns;
+        chunkUses[chunk] = ++uses;
+        if (chunks[chunk] == null) {
+            if (bakedCount == maxChunks) {
+                evict();
+            }
+            chunks[chunk] = bake(chunkX, chunkY);
+            baked[bakedCount++] = chunk;
+        }
+        return chunks[chunk];
+    }
+
+    // Always bakes into a new image: a recorded frame may still be holding
+    // the old region, and a new region is what marks the chunk as damaged.
+    private ImageRegion bake(int chunkX, int chunkY) {
+        int tileWidth = sheet.getTileWidth();
+        int tileHeight = sheet.getTileHeight();
+        int tileX0 = chunkX * chunkSize;
+        int tileY0 = chunkY * chunkSize;
+        int tilesWide = Math.min(chunkSize, columns - tileX0);
+        int tilesHigh = Math.min(chunkSize, rows - tileY0);
+        int width = tilesWide * tileWidth;
+        int height = tilesHigh * tileHeight;
+
+        int[] src = sheet.getPixels();
+        int srcStride = sheet.getWidth();
+        int sheetColumns = sheet.getColumns();
+        int[] pixels = new int[width * height];
+
+        for (int ty = 0; ty < tilesHigh; ty++) {
+            for (int tx = 0; tx < tilesWide; tx++) {
+                int index = tiles[(tileX0 + tx) + (tileY0 + ty) * columns];
+                if (index == EMPTY) continue;
+
+                int srcIndex = (index % sheetColumns) * tileWidth + (index / sheetColumns) * tileHeight * srcStride;
+                int dstIndex = tx * tileWidth + ty * tileHeight * width;
+                for (int y = 0; y < tileHeight; y++) {
+                    System.arraycopy(src, srcIndex, pixels, dstIndex, tileWidth);
+                    srcIndex += srcStride;
+                    dstIndex += width;
+                }
+            }
+        }
+        bakes++;
+
+        Image image = new Image(pixels, width, height);
+        image.setAlpha(sheet.isAlpha());
+        image.setPremultiplied(sheet.isPremultiplied());
+        return image.getRegion();
+    }
+
+    private void evict() {
+        int oldest = 0;
+        for (int i = 1; i < bakedCount; i++) {
+            if (chunkUses[baked[i]] < chunkUses[baked[oldest]]) {
+                oldest = i;
+            }
+        }
+        drop(baked[oldest]);
+    }
+
+    private void drop(int chunk) {
+        if (chunks[chunk] == null) return;
+
+        chunks[chunk] = null;
+        for (int i = 0; i < bakedCount; i++) {
+            if (baked[i] == chunk) {
+                baked[i] = baked[--bakedCount];
+                break;
+            }
+        }
+    }
+
+//  ----- Getters & Setters -----
+
+    public ImageTile getSheet() {
+        return sheet;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkColumns() {
+        return chunkColumns;
+    }
+
+    public int getChunkRows() {
+        return chunkRows;
+    }
+
+    public int getChunkPixelWidth() {
+        return chunkSize * sheet.getTileWidth();
+    }
+
+    public int getChunkPixelHeight() {
+        return chunkSize * sheet.getTileHeight();
+    }
+
+    public int getPixelWidth() {
+        return columns * sheet.getTileWidth();
+    }
+
+    public int getPixelHeight() {
+        return rows * sheet.getTileHeight();
+    }
+
+    public int getBakedChunks() {
+        return bakedCount;
+    }
+
+    public long getBakes() {
+        return bakes;
+    }
+
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    // Should at least cover the chunks one viewport touches, or every frame
+    // rebakes what it evicted the frame before.
+    public void setMaxChunks(int maxChunks) {
+        if (maxChunks <= 0) {
+            throw new IllegalArgumentException("At least one chunk has to stay baked");
+        }
+        while (bakedCount > maxChunks) {
+            evict();
+        }
+        this.maxChunks = maxChunks;
+        baked = Arrays.copyOf(baked, maxChunks);
+    }
+}
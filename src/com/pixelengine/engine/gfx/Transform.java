@@ -0,0 +1,156 @@
+package com.pixelengine.engine.gfx;
+
+// Inverse maps destination pixels back into an image rotated by an angle
+// (radians, clockwise on screen) and scaled about its center, sampling the
+// nearest source pixel. Coordinates are 16.16 fixed point and relative to
+// the pixel the image's center lands on, so the same angle and scale give
+// the same pixels wherever the image is drawn.
+//
+// For each destination row, row() solves for the exact columns that map
+// inside the source, then sample() walks them adding a constant step per
+// pixel. Nothing outside the image's footprint is visited.
+public class Transform {
+    public static final int SHIFT = 16;
+    public static final int MAX_SIZE = 1 << (31 - SHIFT);
+
+    private int width, height;
+    private long limitU, limitV;
+
+    // Source step per destination pixel right (du, dv) and row down (rowU, rowV),
+    // and the source position of the center pixel
+    private long du, dv, rowU, rowV;
+    private long centerU, centerV;
+    private double extentX, extentY;
+
+    private int spanX0, spanX1;
+    private int u, v;
+
+    public void set(int width, int height, float angle, float scale) {
+        if (width <= 0 || height <= 0 || width >= MAX_SIZE || height >= MAX_SIZE) {
+            throw new IllegalArgumentException("Cannot transform a " + width + "x" + height + " image");
+        }
+        check(angle, scale);
+        this.width = width;
+        this.height = height;
+        limitU = (long) width << SHIFT;
+        limitV = (long) height << SHIFT;
+
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        // Capped so the row math can't overflow, by then the image is far
+        // smaller than a pixel anyway
+        double one = Math.min((1 << SHIFT) / (double) scale, 1L << 40);
+        du = Math.round(cos * one);
+        dv = Math.round(-sin * one);
+        rowU = Math.round(sin * one);
+        rowV = Math.round(cos * one);
+
+        // Destination pixel centers sit half a pixel from their corner
+        centerU = Math.round(limitU / 2.0 + (du + rowU) / 2.0);
+        centerV = Math.round(limitV / 2.0 + (dv + rowV) / 2.0);
+
+        // Half the size of the rotated rectangle, plus a pixel for rounding
+        extentX = scale * (Math.abs(cos) * width + Math.abs(sin) * height) / 2 + 1;
+        extentY = scale * (Math.abs(sin) * width + Math.abs(cos) * height) / 2 + 1;
+    }
+
+    public static void check(float angle, float scale) {
+        if (!(scale > 0) || Float.isInfinite(scale) || !Float.isFinite(angle)) {
+            throw new IllegalArgumentException("Invalid transform: angle " + angle + ", scale " + scale);
+        }
+    }
+
+//  ----- Bounds -----
+
+    // Destination bounds relative to the center pixel, right and bottom
+    // exclusive. Clamped well inside int range for huge scales.
+    public int getLeft() {
+        return (int) Math.max(Math.floor(-extentX), -(1 << 30));
+    }
+
+    public int getTop() {
+        return (int) Math.max(Math.floor(-extentY), -(1 << 30));
+    }
+
+    public int getRight() {
+        return (int) Math.min(Math.ceil(extentX) + 1, 1 << 30);
+    }
+
+    public int getBottom() {
+        return (int) Math.min(Math.ceil(extentY) + 1, 1 << 30);
+    }
+
+//  ----- Rows -----
+
+    // Finds the columns of row y, from x0 to x1 exclusive, that land inside
+    // the source. Returns false when there are none.
+    public boolean row(int y, int x0, int x1) {
+        long rowStartU = centerU + rowU * y;
+        long rowStartV = centerV + rowV * y;
+
+        long first = x0, last = x1 - 1L;
+        // 0 <= u < limit and 0 <= v < limit, each a range of columns
+        if (du > 0) {
+            first = Math.max(first, ceilDiv(-rowStartU, du));
+            last = Math.min(last, Math.floorDiv(limitU - 1 - rowStartU, du));
+        } else if (du < 0) {
+            first = Math.max(first, ceilDiv(limitU - 1 - rowStartU, du));
+            last = Math.min(last, Math.floorDiv(-rowStartU, du));
+        } else if (rowStartU < 0 || rowStartU >= limitU) {
+            return false;
+        }
+        if (dv > 0) {
+            first = Math.max(first, ceilDiv(-rowStartV, dv));
+            last = Math.min(last, Math.floorDiv(limitV - 1 - rowStartV, dv));
+        } else if (dv < 0) {
+            first = Math.max(first, ceilDiv(limitV - 1 - rowStartV, dv));
+            last = Math.min(last, Math.floorDiv(-rowStartV, dv));
+        } else if (rowStartV < 0 || rowStartV >= limitV) {
+            return false;
+        }
+        if (first > last) return false;
+
+        spanX0 = (int) first;
+        spanX1 = (int) last + 1;
+        u = (int) (rowStartU + du * first);
+        v = (int) (rowStartV + dv * first);
+        return true;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    // Copies the source pixels of the row found by row() into out from
+    // outIndex. srcX and srcY are the source region's corner in the image.
+    public void sample(int[] src, int stride, int srcX, int srcY, int[] out, int outIndex) {
+        int base = srcX + srcY * stride;
+        int u = this.u, v = this.v;
+        // The span is at most one pixel when a step doesn't fit an int
+        int du = (int) this.du, dv = (int) this.dv;
+        for (int i = outIndex, end = outIndex + spanX1 - spanX0; i < end; i++) {
+            out[i] = src[base + (u >> SHIFT) + (v >> SHIFT) * stride];
+            u += du;
+            v += dv;
+        }
+    }
+
+//  ----- Getters -----
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Span found by the last successful row(), relative to the center pixel
+    public int getSpanX0() {
+        return spanX0;
+    }
+
+    public int getSpanX1() {
+        return spanX1;
+    }
+}
@@ -0,0 +1,183 @@
+package com.pixelengine.engine.gfx;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Pre-transformed copies of image regions keyed by region, angle and scale,
+// evicted least recently used first once either the entry or the pixel
+// budget runs out. A variant holds exactly the pixels Transform would draw,
+// so drawing it is a plain blit with the same result. Only exact angles
+// hit, callers that want hits should snap their angles to a few steps.
+// Changes to an image's pixels are not detected, clear() after editing.
+// Not thread safe, every RenderEngine owns its own cache.
+public class TransformCache {
+    private final LinkedHashMap<Key, Variant> variants = new LinkedHashMap<Key, Variant>(64, 0.75f, true);
+    private final Key lookup = new Key();
+    private final Transform transform = new Transform();
+
+    private int maxEntries;
+    private long maxPixels;
+    private long cachedPixels = 0;
+    private long hits = 0, misses = 0;
+
+    public TransformCache() {
+        this(512, 1 << 21);
+    }
+
+    public TransformCache(int maxEntries, long maxPixels) {
+        if (maxEntries < 0 || maxPixels < 0) {
+            throw new IllegalArgumentException("Cache limits must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxPixels = maxPixels;
+    }
+
+    // Returns null when the variant is too big to cache.
+    public Variant get(ImageRegion region, float angle, float scale) {
+        lookup.set(region, angle, scale);
+        Variant variant = variants.get(lookup);
+        if (variant != null) {
+            hits++;
+            return variant;
+        }
+        misses++;
+
+        transform.set(region.getWidth(), region.getHeight(), angle, scale);
+        long size = (long) (transform.getRight() - transform.getLeft()) * (transform.getBottom() - transform.getTop());
+        if (size > maxPixels || maxEntries == 0) {
+            return null;
+        }
+
+        variant = rasterize(region, transform);
+        Key key = new Key();
+        key.set(region, angle, scale);
+        variants.put(key, variant);
+        cachedPixels += size;
+        evict();
+        return variant;
+    }
+
+    public void clear() {
+        variants.clear();
+        cachedPixels = 0;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Variant>> eldest = variants.entrySet().iterator();
+        while (eldest.hasNext() && (variants.size() > maxEntries || cachedPixels > maxPixels)) {
+            ImageRegion region = eldest.next().getValue().getRegion();
+            cachedPixels -= (long) region.getWidth() * region.getHeight();
+            eldest.remove();
+        }
+    }
+
+    // Draws the region through an already set transform into a new image
+    // covering its bounds.
+    public static Variant rasterize(ImageRegion region, Transform transform) {
+        int left = transform.getLeft();
+        int top = transform.getTop();
+        int width = transform.getRight() - left;
+        int height = transform.getBottom() - top;
+        int[] pixels = new int[width * height];
+
+        Image source = region.getImage();
+        for (int y = 0; y < height; y++) {
+            if (transform.row(y + top, left, left + width)) {
+                transform.sample(source.getPixels(), source.getWidth(), region.getX(), region.getY(),
+                        pixels, y * width + transform.getSpanX0() - left);
+            }
+        }
+
+        Image image = new Image(pixels, width, height);
+        image.setAlpha(true);
+        image.setPremultiplied(source.isPremultiplied());
+        return new Variant(image.getRegion(), left, top);
+    }
+
+//  ----- Getters & Setters -----
+
+    public int size() {
+        return variants.size();
+    }
+
+    public long getCachedPixels() {
+        return cachedPixels;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        evict();
+    }
+
+    public long getMaxPixels() {
+        return maxPixels;
+    }
+
+    public void setMaxPixels(long maxPixels) {
+        this.maxPixels = maxPixels;
+        evict();
+    }
+
+    // A transformed region and where its corner sits relative to the pixel
+    // the source's center lands on.
+    public static final class Variant {
+        private final ImageRegion region;
+        private final int offX, offY;
+
+        private Variant(ImageRegion region, int offX, int offY) {
+            this.region = region;
+            this.offX = offX;
+            this.offY = offY;
+        }
+
+        public ImageRegion getRegion() {
+            return region;
+        }
+
+        public int getOffX() {
+            return offX;
+        }
+
+        public int getOffY() {
+            return offY;
+        }
+    }
+
+    private static final class Key {
+        private ImageRegion region;
+        private int angle, scale;
+        private int hash;
+
+        private void set(ImageRegion region, float angle, float scale) {
+            this.region = region;
+            this.angle = Float.floatToIntBits(angle);
+            this.scale = Float.floatToIntBits(scale);
+            hash = (System.identityHashCode(region) * 31 + this.angle) * 31 + this.scale;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return region == key.region && angle == key.angle && scale == key.scale;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
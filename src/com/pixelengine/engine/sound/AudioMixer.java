@@ -0,0 +1,320 @@
+package com.pixelengine.engine.sound;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Mixes a fixed pool of voices into one output on a dedicated thread. Any
+// number of sounds, including the same sound several times over, share the
+// one line the sink holds. When every voice is busy a new sound steals the
+// voice with the lowest priority, oldest first, as long as that priority
+// is not above its own.
+//
+// Voices are addressed by handles that go stale once the voice is reused,
+// so stopping or adjusting a sound that already finished does nothing.
+public class AudioMixer implements Runnable {
+    public static final int CHANNELS = 2;
+
+    private static AudioMixer defaultMixer;
+
+    private final AudioFormat format;
+    private final SampleCache samples;
+    private final Voice[] voices;
+    private final CopyOnWriteArrayList<AudioSource> sources = new CopyOnWriteArrayList<AudioSource>();
+    private long serial = 0;
+    private float masterGain = 1.0f;
+
+    private int blockFrames = 512;
+    private int[] mixBuffer;
+    private byte[] outBuffer;
+
+    private AudioSink sink;
+    private Thread thread;
+    private volatile boolean running = false;
+
+    public AudioMixer(int voiceCount, float sampleRate) {
+        if (voiceCount <= 0 || voiceCount > 256) {
+            throw new IllegalArgumentException("Voice count must be between 1 and 256, got " + voiceCount);
+        }
+        format = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, sampleRate, 16, CHANNELS, CHANNELS * 2, sampleRate, false);
+        samples = new SampleCache(sampleRate);
+        voices = new Voice[voiceCount];
+        for (int i = 0; i < voiceCount; i++) {
+            voices[i] = new Voice();
+        }
+        mixBuffer = new int[blockFrames * CHANNELS];
+        outBuffer = new byte[blockFrames * CHANNELS * 2];
+    }
+
+    // The mixer SoundClip plays through, opened on a line the first time it
+    // is needed. Stays closed when there is no audio device.
+    public static synchronized AudioMixer getDefault() {
+        if (defaultMixer == null) {
+            defaultMixer = new AudioMixer(32, 44100);
+            try {
+                defaultMixer.open(new LineSink());
+                defaultMixer.start();
+            } catch (LineUnavailableException | IllegalArgumentException e) {
+                System.err.println("No audio output, sounds are muted: " + e.getMessage());
+            }
+        }
+        return defaultMixer;
+    }
+
+//  ----- Output -----
+
+    public void open(AudioSink sink) throws LineUnavailableException {
+        sink.open(format);
+        this.sink = sink;
+    }
+
+    public void start() {
+        if (sink == null) {
+            throw new IllegalStateException("Open the mixer on a sink before starting it");
+        }
+        running = true;
+        thread = new Thread(this, "PixelEngine-Audio");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Stops the mixer thread and closes the sink.
+    public void close() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+        if (sink != null) {
+            sink.close();
+            sink = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            pump(blockFrames);
+        }
+    }
+
+    // Mixes the next frames and hands them to the sink. The mixer thread
+    // does this in a loop, headless code can call it directly instead.
+    public void pump(int frames) {
+        while (frames > 0) {
+            int block = Math.min(frames, blockFrames);
+            mix(outBuffer, block);
+            sink.write(outBuffer, 0, block * CHANNELS * 2);
+            frames -= block;
+        }
+    }
+
+    public void mix(byte[] out, int frames) {
+        if (mixBuffer.length < frames * CHANNELS) {
+            mixBuffer = new int[frames * CHANNELS];
+        }
+        int[] mix = mixBuffer;
+        Arrays.fill(mix, 0, frames * CHANNELS, 0);
+
+        float masterGain;
+        synchronized (this) {
+            masterGain = this.masterGain;
+            for (Voice voice : voices) {
+                if (voice.sample != null) {
+                    mixVoice(voice, mix, frames);
+                }
+            }
+        }
+        for (AudioSource source : sources) {
+            source.mix(mix, frames, masterGain);
+        }
+
+        for (int i = 0; i < frames * CHANNELS; i++) {
+            int value = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            out[i * 2] = (byte) value;
+            out[i * 2 + 1] = (byte) (value >> 8);
+        }
+    }
+
+    private void mixVoice(Voice voice, int[] mix, int frames) {
+        short[] data = voice.sample.getData();
+        int sampleFrames = voice.sample.getFrames();
+        float left = voice.gain * masterGain * Math.min(1.0f, 1.0f - voice.pan);
+        float right = voice.gain * masterGain * Math.min(1.0f, 1.0f + voice.pan);
+
+        int out = 0;
+        while (out < frames) {
+            int run = Math.min(frames - out, sampleFrames - voice.position);
+            int in = voice.position * CHANNELS;
+            for (int i = out * CHANNELS; i < (out + run) * CHANNELS; i += CHANNELS) {
+                mix[i] += (int) (data[in] * left);
+                mix[i + 1] += (int) (data[in + 1] * right);
+                in += CHANNELS;
+            }
+            out += run;
+            voice.position += run;
+
+            if (voice.position == sampleFrames) {
+                if (!voice.loop || sampleFrames == 0) {
+                    voice.sample = null;
+                    return;
+                }
+                voice.position = 0;
+            }
+        }
+    }
+
+    public void addSource(AudioSource source) {
+        sources.addIfAbsent(source);
+    }
+
+    public void removeSource(AudioSource source) {
+        sources.remove(source);
+    }
+
+//  ----- Voices -----
+
+    // Returns a handle to the voice, or -1 when every voice is taken by
+    // something more important.
+    public synchronized int play(Sample sample, float gain, float pan, int priority, boolean loop) {
+        Voice voice = null;
+        int index = -1;
+        for (int i = 0; i < voices.length; i++) {
+            if (voices[i].sample == null) {
+                voice = voices[i];
+                index = i;
+                break;
+            }
+        }
+        if (voice == null) {
+            for (int i = 0; i < voices.length; i++) {
+                Voice candidate = voices[i];
+                if (candidate.priority > priority) continue;
+                if (voice == null || candidate.priority < voice.priority
+                        || (candidate.priority == voice.priority && candidate.serial < voice.serial)) {
+                    voice = candidate;
+                    index = i;
+                }
+            }
+            if (voice == null) {
+                return -1;
+            }
+        }
+
+        voice.sample = sample;
+        voice.position = 0;
+        voice.gain = gain;
+        voice.pan = Math.max(-1.0f, Math.min(1.0f, pan));
+        voice.priority = priority;
+        voice.loop = loop;
+        voice.serial = ++serial;
+        return (int) (voice.serial << 8) & 0x7fffff00 | index;
+    }
+
+    private Voice voice(int handle) {
+        if (handle < 0) return null;
+
+        Voice voice = voices[(handle & 0xff) % voices.length];
+        if (voice.sample == null || ((int) (voice.serial << 8) & 0x7fffff00) != (handle & 0x7fffff00)) {
+            return null;
+        }
+        return voice;
+    }
+
+    public synchronized void stop(int handle) {
+        Voice voice = voice(handle);
+        if (voice != null) {
+            voice.sample = null;
+        }
+    }
+
+    public synchronized void stopAll() {
+        for (Voice voice : voices) {
+            voice.sample = null;
+        }
+    }
+
+    public synchronized boolean isPlaying(int handle) {
+        return voice(handle) != null;
+    }
+
+    public synchronized void setGain(int handle, float gain) {
+        Voice voice = voice(handle);
+        if (voice != null) {
+            voice.gain = gain;
+        }
+    }
+
+    // -1 is hard left, 1 hard right.
+    public synchronized void setPan(int handle, float pan) {
+        Voice voice = voice(handle);
+        if (voice != null) {
+            voice.pan = Math.max(-1.0f, Math.min(1.0f, pan));
+        }
+    }
+
+    public synchronized int getActiveVoices() {
+        int active = 0;
+        for (Voice voice : voices) {
+            if (voice.sample != null) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+//  ----- Getters & Setters -----
+
+    public boolean isOpen() {
+        return sink != null;
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    public SampleCache getSamples() {
+        return samples;
+    }
+
+    public int getVoiceCount() {
+        return voices.length;
+    }
+
+    public synchronized float getMasterGain() {
+        return masterGain;
+    }
+
+    public synchronized void setMasterGain(float masterGain) {
+        this.masterGain = masterGain;
+    }
+
+    public int getBlockFrames() {
+        return blockFrames;
+    }
+
+    // Frames mixed per write, smaller blocks lower the latency the mixer adds.
+    public void setBlockFrames(int blockFrames) {
+        if (running) {
+            throw new IllegalStateException("Cannot change the block size while the mixer runs");
+        }
+        this.blockFrames = blockFrames;
+        mixBuffer = new int[blockFrames * CHANNELS];
+        outBuffer = new byte[blockFrames * CHANNELS * 2];
+    }
+
+    private static class Voice {
+        private Sample sample;
+        private int position;
+        private float gain, pan;
+        private int priority;
+        private boolean loop;
+        private long serial;
+    }
+}
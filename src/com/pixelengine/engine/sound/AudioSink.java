@@ -0,0 +1,15 @@
+package com.pixelengine.engine.sound;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+
+// Where an AudioMixer sends its output, 16 bit signed little endian PCM in
+// the mixer's format.
+public interface AudioSink {
+    void open(AudioFormat format) throws LineUnavailableException;
+
+    // May block until the sink has room, which is what paces the mixer.
+    void write(byte[] buffer, int offset, int length);
+
+    void close();
+}
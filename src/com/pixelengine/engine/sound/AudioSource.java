@@ -0,0 +1,9 @@
+package com.pixelengine.engine.sound;
+
+// Something the mixer pulls audio from every block besides its voices,
+// such as streamed music. Called on the mixer thread, must not block.
+public interface AudioSource {
+    // Adds frames of stereo audio at the mixer's rate onto mix, scaled by
+    // the mixer's master gain.
+    void mix(int[] mix, int frames, float masterGain);
+}
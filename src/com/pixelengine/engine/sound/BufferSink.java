@@ -0,0 +1,55 @@
+package com.pixelengine.engine.sound;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.Arrays;
+
+// Collects the mixer's output in memory instead of playing it, for running
+// headless and checking what would have been heard.
+public class BufferSink implements AudioSink {
+    private AudioFormat format;
+    private byte[] data = new byte[4096];
+    private int size = 0;
+
+    @Override
+    public void open(AudioFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        if (size + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + length));
+        }
+        System.arraycopy(buffer, offset, data, size, length);
+        size += length;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    // The output as interleaved 16 bit samples.
+    public short[] toSamples() {
+        short[] samples = new short[size / 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) ((data[i * 2] & 0xff) | (data[i * 2 + 1] << 8));
+        }
+        return samples;
+    }
+
+    public int getFrames() {
+        return format == null ? 0 : size / format.getFrameSize();
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+}
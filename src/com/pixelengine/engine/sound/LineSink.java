@@ -0,0 +1,44 @@
+package com.pixelengine.engine.sound;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+// Plays through a single SourceDataLine, the only line the engine holds.
+public class LineSink implements AudioSink {
+    private int bufferFrames;
+    private SourceDataLine line;
+
+    public LineSink() {
+        this(2048);
+    }
+
+    // The line's buffer decides the latency, and how long the mixer thread
+    // can be late before the output underruns.
+    public LineSink(int bufferFrames) {
+        this.bufferFrames = bufferFrames;
+    }
+
+    @Override
+    public void open(AudioFormat format) throws LineUnavailableException {
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format, bufferFrames * format.getFrameSize());
+        line.start();
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        line.write(buffer, offset, length);
+    }
+
+    @Override
+    public void close() {
+        if (line == null) { return; }
+
+        line.stop();
+        line.flush();
+        line.close();
+        line = null;
+    }
+}
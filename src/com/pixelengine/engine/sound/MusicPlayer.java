@@ -0,0 +1,346 @@
+package com.pixelengine.engine.sound;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+// Streams music through an AudioMixer. A decoder thread reads each track a
+// chunk at a time into a small ring buffer and the mixer thread drains it,
+// so memory stays the same however long the track is. Looping tracks are
+// reopened as soon as they end and keep filling the same ring, which makes
+// the loop gapless, and a crossfade plays the old and new track side by
+// side while their gains ramp.
+public class MusicPlayer implements AudioSource, Runnable {
+    private final AudioMixer mixer;
+    private final float sampleRate;
+    private final int bufferFrames;
+    private final int chunkFrames;
+
+    private final CopyOnWriteArrayList<Track> tracks = new CopyOnWriteArrayList<Track>();
+    private Track current, fading;
+    private float gain = 1.0f;
+
+    private Thread thread;
+    private volatile boolean running = true;
+
+    public MusicPlayer() {
+        this(AudioMixer.getDefault());
+    }
+
+    public MusicPlayer(AudioMixer mixer) {
+        this(mixer, 16384, 2048);
+    }
+
+    // bufferFrames is how far ahead of the mixer each track is decoded,
+    // chunkFrames how much is decoded at a time.
+    public MusicPlayer(AudioMixer mixer, int bufferFrames, int chunkFrames) {
+        if (chunkFrames <= 0 || bufferFrames < chunkFrames * 2) {
+            throw new IllegalArgumentException("The buffer must hold at least two chunks");
+        }
+        this.mixer = mixer;
+        this.sampleRate = mixer.getFormat().getSampleRate();
+        this.bufferFrames = bufferFrames;
+        this.chunkFrames = chunkFrames;
+
+        thread = new Thread(this, "PixelEngine-Music");
+        thread.setDaemon(true);
+        thread.start();
+        mixer.addSource(this);
+    }
+
+//  ----- Playback -----
+
+    public void play(String path, boolean loop) {
+        play(() -> open(path), loop);
+    }
+
+    // Cuts straight to the track.
+    public synchronized void play(Callable<AudioInputStream> stream, boolean loop) {
+        stop();
+        current = start(stream, loop);
+        current.fade(1.0f, 1.0f, 0);
+    }
+
+    public void crossfade(String path, boolean loop, float seconds) {
+        crossfade(() -> open(path), loop, seconds);
+    }
+
+    // Fades the playing track out while the new one fades in.
+    public synchronized void crossfade(Callable<AudioInputStream> stream, boolean loop, float seconds) {
+        int frames = Math.round(seconds * sampleRate);
+        if (fading != null) {
+            fading.finished = true;
+        }
+        fading = current;
+        if (fading != null) {
+            fading.fade(fading.gain(), 0.0f, frames);
+        }
+        current = start(stream, loop);
+        current.fade(0.0f, 1.0f, frames);
+    }
+
+    public synchronized void fadeOut(float seconds) {
+        if (fading != null) {
+            fading.finished = true;
+        }
+        fading = current;
+        current = null;
+        if (fading != null) {
+            fading.fade(fading.gain(), 0.0f, Math.round(seconds * sampleRate));
+        }
+    }
+
+    public synchronized void stop() {
+        if (current != null) {
+            current.finished = true;
+        }
+        if (fading != null) {
+            fading.finished = true;
+        }
+        current = null;
+        fading = null;
+    }
+
+    public synchronized boolean isPlaying() {
+        return current != null && !current.finished;
+    }
+
+    public void close() {
+        stop();
+        mixer.removeSource(this);
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Track start(Callable<AudioInputStream> stream, boolean loop) {
+        Track track = new Track(stream, loop);
+        tracks.add(track);
+        LockSupport.unpark(thread);
+        return track;
+    }
+
+    private static AudioInputStream open(String path) throws Exception {
+        InputStream source = MusicPlayer.class.getResourceAsStream(path);
+        if (source == null) {
+            throw new IOException("No music at " + path);
+        }
+        return AudioSystem.getAudioInputStream(new BufferedInputStream(source));
+    }
+
+//  ----- Mixer Thread -----
+
+    @Override
+    public synchronized void mix(int[] mix, int frames, float masterGain) {
+        if (current != null && current.mixInto(mix, frames, gain * masterGain)) {
+            current = null;
+        }
+        if (fading != null && fading.mixInto(mix, frames, gain * masterGain)) {
+            fading = null;
+        }
+        LockSupport.unpark(thread);
+    }
+
+//  ----- Decoder Thread -----
+
+    @Override
+    public void run() {
+        while (running) {
+            boolean busy = false;
+            for (Track track : tracks) {
+                if (track.finished) {
+                    track.close();
+                    tracks.remove(track);
+                    continue;
+                }
+                busy |= track.decode();
+            }
+            if (!busy) {
+                LockSupport.parkNanos(10_000_000L);
+            }
+        }
+        for (Track track : tracks) {
+            track.close();
+        }
+        tracks.clear();
+    }
+
+//  ----- Getters & Setters -----
+
+    public synchronized float getGain() {
+        return gain;
+    }
+
+    public synchronized void setGain(float gain) {
+        this.gain = gain;
+    }
+
+    public void setVolume(float db) {
+        setGain((float) Math.pow(10.0, db / 20.0));
+    }
+
+    public int getBufferFrames() {
+        return bufferFrames;
+    }
+
+    // One track's stream and ring. The decoder thread is the only writer and
+    // the mixer thread the only reader, the two positions are all they share.
+    private class Track {
+        private final Callable<AudioInputStream> opener;
+        private final boolean loop;
+
+        private final short[] ring = new short[bufferFrames * AudioMixer.CHANNELS];
+        private volatile long written = 0, read = 0;
+        private volatile boolean ended = false;
+        private volatile boolean finished = false;
+
+        // Decoder thread state
+        private AudioInputStream stream;
+        private int channels;
+        private double step, position = 0;
+        private short lastLeft, lastRight;
+        private byte[] chunk;
+
+        // Mixer thread state, guarded by the player
+        private float fadeFrom, fadeTo;
+        private int fadeFrames, fadeDone;
+
+        private Track(Callable<AudioInputStream> opener, boolean loop) {
+            this.opener = opener;
+            this.loop = loop;
+        }
+
+        private void fade(float from, float to, int frames) {
+            fadeFrom = from;
+            fadeTo = to;
+            fadeFrames = frames;
+            fadeDone = 0;
+        }
+
+        private float gain() {
+            if (fadeDone >= fadeFrames) return fadeTo;
+            return fadeFrom + (fadeTo - fadeFrom) * fadeDone / fadeFrames;
+        }
+
+        // Returns true once the track has nothing more to play.
+        private boolean mixInto(int[] mix, int frames, float gain) {
+            if (finished) return true;
+
+            int available = (int) Math.min(written - read, frames);
+            int index = (int) (read % bufferFrames) * AudioMixer.CHANNELS;
+            for (int i = 0; i < available * AudioMixer.CHANNELS; i += AudioMixer.CHANNELS) {
+                float scale = gain * gain();
+                mix[i] += (int) (ring[index] * scale);
+                mix[i + 1] += (int) (ring[index + 1] * scale);
+                index += AudioMixer.CHANNELS;
+                if (index == ring.length) {
+                    index = 0;
+                }
+                if (fadeDone < fadeFrames) {
+                    fadeDone++;
+                }
+            }
+            read += available;
+
+            if ((ended && read == written) || (fadeTo == 0.0f && fadeDone >= fadeFrames)) {
+                finished = true;
+            }
+            return finished;
+        }
+
+        // Decodes one chunk if the ring has room for it, returns whether it did.
+        private boolean decode() {
+            if (ended) return false;
+
+            try {
+                if (stream == null) {
+                    reopen();
+                }
+                int maxOut = (int) Math.ceil(chunkFrames / step) + 2;
+                if (bufferFrames - (written - read) < maxOut) return false;
+
+                int bytes = stream.read(chunk, 0, chunkFrames * channels * 2);
+                if (bytes < 0) {
+                    stream.close();
+                    stream = null;
+                    if (!loop) {
+                        ended = true;
+                    }
+                    return true;
+                }
+                resample(bytes / (channels * 2));
+            } catch (Exception e) {
+                e.printStackTrace();
+                ended = true;
+            }
+            return true;
+        }
+
+        private void reopen() throws Exception {
+            AudioInputStream source = opener.call();
+            AudioFormat format = Sample.pcmFormat(source.getFormat());
+            stream = AudioSystem.getAudioInputStream(format, source);
+            if (written == 0 && position == 0) {
+                channels = format.getChannels();
+                step = format.getSampleRate() / sampleRate;
+                chunk = new byte[chunkFrames * channels * 2];
+            } else if (format.getChannels() != channels || format.getSampleRate() / sampleRate != step) {
+                throw new IOException("Looped stream changed format");
+            }
+        }
+
+        // Linear interpolation that carries on across chunks and loops, frame
+        // -1 is the last frame of the previous chunk.
+        private void resample(int frames) {
+            long out = written;
+            while (true) {
+                int frame = (int) Math.floor(position);
+                if (frame + 1 >= frames) break;
+
+                double fraction = position - frame;
+                int index = (int) (out % bufferFrames) * AudioMixer.CHANNELS;
+                ring[index] = interpolate(frame, fraction, 0, lastLeft);
+                ring[index + 1] = interpolate(frame, fraction, 1, lastRight);
+                out++;
+                position += step;
+            }
+            if (frames > 0) {
+                lastLeft = read(frames - 1, 0);
+                lastRight = read(frames - 1, 1);
+                position -= frames;
+            }
+            written = out;
+        }
+
+        private short interpolate(int frame, double fraction, int channel, short last) {
+            int a = frame < 0 ? last : read(frame, channel);
+            int b = read(frame + 1, channel);
+            return (short) Math.round(a + (b - a) * fraction);
+        }
+
+        private short read(int frame, int channel) {
+            int sample = (frame * channels + Math.min(channel, channels - 1)) * 2;
+            return (short) ((chunk[sample] & 0xff) | (chunk[sample + 1] << 8));
+        }
+
+        private void close() {
+            if (stream == null) return;
+            try {
+                stream.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            stream = null;
+        }
+    }
+}
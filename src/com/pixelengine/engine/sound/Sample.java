@@ -0,0 +1,89 @@
+package com.pixelengine.engine.sound;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// A decoded sound, stereo 16 bit at the mixer's sample rate so voices can
+// be mixed without converting anything on the audio thread.
+public class Sample {
+    private final short[] data;
+    private final int frames;
+
+    public Sample(short[] data) {
+        if (data.length % AudioMixer.CHANNELS != 0) {
+            throw new IllegalArgumentException("Sample data must be interleaved stereo");
+        }
+        this.data = data;
+        this.frames = data.length / AudioMixer.CHANNELS;
+    }
+
+    public static Sample load(String path, float sampleRate) throws IOException, UnsupportedAudioFileException {
+        InputStream source = Sample.class.getResourceAsStream(path);
+        if (source == null) {
+            throw new IOException("No sound at " + path);
+        }
+        try (AudioInputStream input = AudioSystem.getAudioInputStream(new BufferedInputStream(source))) {
+            return decode(input, sampleRate);
+        }
+    }
+
+    public static Sample decode(AudioInputStream input, float sampleRate) throws IOException {
+        AudioFormat pcmFormat = pcmFormat(input.getFormat());
+        try (AudioInputStream decoded = AudioSystem.getAudioInputStream(pcmFormat, input)) {
+            return fromPcm(pcmFormat, decoded.readAllBytes(), sampleRate);
+        }
+    }
+
+    // The 16 bit signed little endian form a stream in the given format
+    // decodes to, at its own rate and channel count.
+    public static AudioFormat pcmFormat(AudioFormat format) {
+        return new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16, format.getChannels(),
+                format.getChannels() * 2, format.getSampleRate(), false);
+    }
+
+    // Converts 16 bit signed little endian PCM to stereo, resampling
+    // linearly when the rates differ. Mono is copied to both sides and any
+    // channels past the second are dropped.
+    public static Sample fromPcm(AudioFormat format, byte[] pcm, float sampleRate) {
+        int channels = format.getChannels();
+        int sourceFrames = pcm.length / (channels * 2);
+        double step = format.getSampleRate() / sampleRate;
+        int frames = sourceFrames == 0 ? 0 : (int) ((sourceFrames - 1) / step) + 1;
+
+        short[] data = new short[frames * AudioMixer.CHANNELS];
+        for (int i = 0; i < frames; i++) {
+            double position = i * step;
+            int frame = (int) position;
+            int next = Math.min(frame + 1, sourceFrames - 1);
+            double fraction = position - frame;
+            for (int c = 0; c < AudioMixer.CHANNELS; c++) {
+                int channel = Math.min(c, channels - 1);
+                int a = read(pcm, frame * channels + channel);
+                int b = read(pcm, next * channels + channel);
+                data[i * AudioMixer.CHANNELS + c] = (short) Math.round(a + (b - a) * fraction);
+            }
+        }
+        return new Sample(data);
+    }
+
+    private static int read(byte[] pcm, int sample) {
+        return (short) ((pcm[sample * 2] & 0xff) | (pcm[sample * 2 + 1] << 8));
+    }
+
+    public short[] getData() {
+        return data;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public long getSize() {
+        return (long) data.length * Short.BYTES;
+    }
+}
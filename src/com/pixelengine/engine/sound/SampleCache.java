@@ -0,0 +1,45 @@
+package com.pixelengine.engine.sound;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Decoded samples shared by every SoundClip of the same path, so a sound
+// is decoded once however many clips play it.
+public class SampleCache {
+    private final float sampleRate;
+    private final ConcurrentHashMap<String, Sample> samples = new ConcurrentHashMap<String, Sample>();
+
+    public SampleCache(float sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public Sample get(String path) {
+        return samples.computeIfAbsent(path, key -> {
+            try {
+                return Sample.load(key, sampleRate);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Cannot decode " + key, e);
+            }
+        });
+    }
+
+    public void put(String path, Sample sample) {
+        samples.put(path, sample);
+    }
+
+    // Forgets the sample only if it is still the one cached for the path.
+    public void remove(String path, Sample sample) {
+        samples.remove(path, sample);
+    }
+
+    public void clear() {
+        samples.clear();
+    }
+
+    public int size() {
+        return samples.size();
+    }
+
+    public float getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -1,73 +1,98 @@
 package com.pixelengine.engine.sound;
 
-import javax.sound.sampled.*;
-import java.io.BufferedInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import javax.sound.sampled.AudioFormat;
 
+// A sound effect played through an AudioMixer. The decoded samples are
+// shared with every other clip of the same path, and playing the clip again
+// while it is still sounding starts another voice instead of cutting it off.
 public class SoundClip {
-    public Clip clip = null;
-    public FloatControl gainControl;
+    private AudioMixer mixer;
+    private String path;
+    private Sample sample;
+
+    private float gain = 1.0f;
+    private float pan = 0.0f;
+    private int priority = 0;
+    private int voice = -1;
 
     public SoundClip(String path) {
+        this(AudioMixer.getDefault(), path);
+    }
+
+    public SoundClip(AudioMixer mixer, String path) {
+        this.mixer = mixer;
+        this.path = path;
         try {
-            InputStream audioSource = SoundClip.class.getResourceAsStream(path);
-            InputStream bufferedInput = new BufferedInputStream(audioSource);
-            AudioInputStream inputStream = AudioSystem.getAudioInputStream(bufferedInput);
-            AudioFormat baseFormat = inputStream.getFormat();
-            AudioFormat decodeFormat = new AudioFormat(
-                    AudioFormat.Encoding.PCM_SIGNED,
-                    baseFormat.getSampleRate(),
-                    16,
-                    baseFormat.getChannels(),
-                    baseFormat.getChannels() * 2,
-                    baseFormat.getSampleRate(),
-                    false
-            );
-            AudioInputStream decodedInputStream = AudioSystem.getAudioInputStream(decodeFormat, inputStream);
-
-            clip = AudioSystem.getClip();
-            clip.open(decodedInputStream);
-
-            gainControl = (FloatControl)clip.getControl(FloatControl.Type.MASTER_GAIN);
-
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
+            sample = mixer.getSamples().get(path);
+        } catch (IllegalArgumentException e) {
             e.printStackTrace();
         }
     }
 
+    // Plays already decoded PCM, for sounds that come out of an asset pack.
+    public SoundClip(AudioFormat format, byte[] data) {
+        this(AudioMixer.getDefault(), format, data);
+    }
+
+    public SoundClip(AudioMixer mixer, AudioFormat format, byte[] data) {
+        this.mixer = mixer;
+        sample = Sample.fromPcm(format, data, mixer.getFormat().getSampleRate());
+    }
+
     public void play() {
-        if (clip == null) { return; }
+        if (sample == null || !mixer.isOpen()) { return; }
 
-        stop();
-        clip.setFramePosition(0);
-        while (!clip.isRunning()) {
-            clip.start();
-        }
+        voice = mixer.play(sample, gain, pan, priority, false);
     }
 
+    // Stops the voice started last.
     public void stop() {
-        if (clip.isRunning()) {
-            clip.stop();
-        }
+        mixer.stop(voice);
     }
 
     public void close() {
         stop();
-        clip.drain();
-        clip.close();
+        if (path != null && sample != null) {
+            mixer.getSamples().remove(path, sample);
+        }
     }
 
     public void loop() {
-        clip.loop(Clip.LOOP_CONTINUOUSLY);
-        play();
+        if (sample == null || !mixer.isOpen()) { return; }
+
+        stop();
+        voice = mixer.play(sample, gain, pan, priority, true);
     }
 
     public void setVolume(float db) {
-        gainControl.setValue(db);
+        gain = (float) Math.pow(10.0, db / 20.0);
+        mixer.setGain(voice, gain);
+    }
+
+    public void setPan(float pan) {
+        this.pan = pan;
+        mixer.setPan(voice, pan);
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    // Higher priority sounds steal voices from lower ones when the mixer is full.
+    public void setPriority(int priority) {
+        this.priority = priority;
     }
 
     public boolean isRunning() {
-        return clip.isRunning();
+        return mixer.isPlaying(voice);
+    }
+
+    // Decoded size in bytes, 0 when the sound failed to decode.
+    public long getSize() {
+        return sample == null ? 0 : sample.getSize();
+    }
+
+    public Sample getSample() {
+        return sample;
     }
 }
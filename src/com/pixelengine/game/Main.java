@@ -1,6 +1,8 @@
 package com.pixelengine.game;
 
 import com.pixelengine.engine.PixelEngine;
+import com.pixelengine.engine.asset.AssetHandle;
+import com.pixelengine.engine.asset.AssetManager;
 import com.pixelengine.engine.gfx.Image;
 import com.pixelengine.engine.gfx.ImageTile;
 import com.pixelengine.engine.sound.SoundClip;
@@ -9,13 +11,25 @@ import java.awt.event.KeyEvent;
 
 public class Main {
 
-    private ImageTile image = new ImageTile("/alpha.png", 64, 64);
-    private Image image2 = new Image("/wolf.png");
-    private ImageTile imageTile = new ImageTile("/tile-set.png", 32, 32);
-    private SoundClip clip = new SoundClip("/audio/van-door.wav");
+    private ImageTile image;
+    private Image image2;
+    private ImageTile imageTile;
+    private SoundClip clip;
 
     public void init(PixelEngine pixelEngine) {
+        // Decode everything in parallel while the window opens
+        AssetManager assets = pixelEngine.getAssets();
+        AssetHandle<ImageTile> imageHandle = assets.loadImageTile("/alpha.png", 64, 64);
+        AssetHandle<Image> image2Handle = assets.loadImage("/wolf.png");
+        AssetHandle<ImageTile> imageTileHandle = assets.loadImageTile("/tile-set.png", 32, 32);
+        AssetHandle<SoundClip> clipHandle = assets.loadSound("/audio/van-door.wav");
+
         pixelEngine.createWindow(640, 360, 2, 2, "Pixel Engine v1.0");
+
+        image = imageHandle.get();
+        image2 = image2Handle.get();
+        imageTile = imageTileHandle.get();
+        clip = clipHandle.get();
         image.setAlpha(true);
     }
 